@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Evelina Vrabie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.codeandmagic.android.gauge;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+
+/**
+ * Shares the rendered backgrounds between gauges that look the same, e.g. the gauges of one view type in a list.
+ * A background is rendered once per size and then handed to every gauge of that size, so binding or creating views
+ * doesn't rasterize or allocate new bitmaps.
+ * <p>
+ * All the gauges using a pool must be configured with the same attributes. The backgrounds are only ever drawn, so
+ * they are shared rather than copied; the least recently used sizes are dropped (never recycled, since a gauge may
+ * still show them) once the pool is full. Under memory pressure the gauges empty the pool, so only the backgrounds
+ * they are showing stay in memory.
+ */
+public class GaugeBackgroundPool {
+
+	public static final int MAX_SIZE = 4;
+
+	private final Map<Long, Bitmap> mBackgrounds;
+
+	public GaugeBackgroundPool() {
+		this(MAX_SIZE);
+	}
+
+	public GaugeBackgroundPool(final int maxSize) {
+		mBackgrounds = new LinkedHashMap<Long, Bitmap>(maxSize + 1, 1.0f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Long, Bitmap> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	synchronized Bitmap get(final int width, final int height) {
+		return mBackgrounds.get(key(width, height));
+	}
+
+	synchronized void put(final int width, final int height, final Bitmap background) {
+		mBackgrounds.put(key(width, height), background);
+	}
+
+	/**
+	 * Forgets all the backgrounds, for instance when the gauges are restyled.
+	 */
+	public synchronized void clear() {
+		mBackgrounds.clear();
+	}
+
+	/**
+	 * Drops all the backgrounds from {@link ComponentCallbacks2#TRIM_MEMORY_RUNNING_LOW} on. The gauges showing one
+	 * keep it; the others render theirs again when they are drawn.
+	 */
+	public synchronized void trim(final int level) {
+		if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+			mBackgrounds.clear();
+		}
+	}
+
+	synchronized int size() {
+		return mBackgrounds.size();
+	}
+
+	private static Long key(final int width, final int height) {
+		return Long.valueOf(((long) width << 32) | (height & 0xffffffffL));
+	}
+}
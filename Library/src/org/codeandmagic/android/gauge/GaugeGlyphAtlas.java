@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Evelina Vrabie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.codeandmagic.android.gauge;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Paint.Align;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+/**
+ * A set of glyphs rendered once, shadow included, into a bitmap at the gauge's pixel size. Drawing a glyph is then a
+ * single bitmap blit, with no text shaping or shadow blur per frame.
+ * <p>
+ * Like the rest of the gauge, the atlas is used in unit square coordinates: advances, positions and sizes are divided
+ * by the scale the glyphs were rendered at.
+ */
+class GaugeGlyphAtlas {
+
+	private final String[] mGlyphs;
+	private final float mScale;
+	private final Bitmap mBitmap;
+	private final Rect[] mSources;
+	private final float[] mAdvances;
+	private final float mPadding;
+	private final float mTop;
+	private final float mHeight;
+	private final RectF mDestination = new RectF();
+
+	/**
+	 * @param paint the text paint, in unit square coordinates. Its shadow is replaced by the given one.
+	 */
+	GaugeGlyphAtlas(final Paint paint, final float shadowRadius, final float shadowDx, final float shadowDy,
+			final int shadowColor, final String[] glyphs, final float scale) {
+		mGlyphs = glyphs;
+		mScale = scale;
+
+		final Paint pixelPaint = new Paint(paint);
+		pixelPaint.setTextAlign(Align.LEFT);
+		pixelPaint.setTextSize(paint.getTextSize() * scale);
+		pixelPaint.setStrokeWidth(paint.getStrokeWidth() * scale);
+		pixelPaint.setShadowLayer(shadowRadius * scale, shadowDx * scale, shadowDy * scale, shadowColor);
+
+		// Leave room around each glyph for its stroke and shadow
+		final int padding = (int) Math.ceil((shadowRadius + Math.max(Math.abs(shadowDx), Math.abs(shadowDy))
+				+ paint.getStrokeWidth()) * scale) + 1;
+		final Paint.FontMetrics metrics = pixelPaint.getFontMetrics();
+		final int height = (int) Math.ceil(metrics.bottom - metrics.top) + 2 * padding;
+
+		final int count = glyphs.length;
+		mSources = new Rect[count];
+		mAdvances = new float[count];
+		int width = 0;
+		for (int i = 0; i < count; i++) {
+			final float advance = pixelPaint.measureText(glyphs[i]);
+			final int cellWidth = (int) Math.ceil(advance) + 2 * padding;
+			mSources[i] = new Rect(width, 0, width + cellWidth, height);
+			mAdvances[i] = advance / scale;
+			width += cellWidth;
+		}
+
+		mBitmap = Bitmap.createBitmap(Math.max(1, width), height, Bitmap.Config.ARGB_8888);
+		final Canvas canvas = new Canvas(mBitmap);
+		for (int i = 0; i < count; i++) {
+			canvas.drawText(glyphs[i], mSources[i].left + padding, padding - metrics.top, pixelPaint);
+		}
+
+		mPadding = padding / scale;
+		mTop = metrics.top / scale;
+		mHeight = height / scale;
+	}
+
+	float getScale() {
+		return mScale;
+	}
+
+	/**
+	 * @return the index of the single character glyph, or -1 if the atlas doesn't have it.
+	 */
+	int indexOf(final char c) {
+		final int count = mGlyphs.length;
+		for (int i = 0; i < count; i++) {
+			if (1 == mGlyphs[i].length() && c == mGlyphs[i].charAt(0)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	float getAdvance(final int index) {
+		return mAdvances[index];
+	}
+
+	/**
+	 * Draws the glyph with its left edge at x and returns its advance.
+	 */
+	float drawGlyph(final Canvas canvas, final int index, final float x, final float baseline, final Paint paint) {
+		final Rect source = mSources[index];
+		final float left = x - mPadding;
+		final float top = baseline + mTop - mPadding;
+		mDestination.set(left, top, left + source.width() / mScale, top + mHeight);
+		canvas.drawBitmap(mBitmap, source, mDestination, paint);
+		return mAdvances[index];
+	}
+
+	void recycle() {
+		mBitmap.recycle();
+	}
+}
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Evelina Vrabie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.codeandmagic.android.gauge;
+
+import android.graphics.Paint;
+
+/**
+ * The value, physics state and paints of one needle of a {@link GaugeView}.
+ */
+class GaugeNeedle {
+
+	Paint mLeftPaint;
+	Paint mRightPaint;
+
+	float mTargetValue;
+	float mCurrentValue;
+
+	float mVelocity;
+	float mAcceleration;
+	long mLastMoved = -1;
+	boolean mInitialized;
+	boolean mTargetChanged;
+
+	void setTargetValue(final float value) {
+		mTargetValue = value;
+		mTargetChanged = true;
+		mInitialized = true;
+	}
+
+	void stop() {
+		mCurrentValue = mTargetValue;
+		mVelocity = 0.0f;
+		mAcceleration = 0.0f;
+		mLastMoved = -1L;
+		mTargetChanged = false;
+	}
+
+	boolean isMoving() {
+		return mInitialized && Math.abs(mCurrentValue - mTargetValue) > 0.01f;
+	}
+
+	/**
+	 * Advances the needle physics to the given time, in milliseconds.
+	 *
+	 * @return false if the needle is at rest.
+	 */
+	boolean move(final long now) {
+		// Logger.log.warn(String.format("velocity=%f, acceleration=%f", mVelocity, mAcceleration));
+
+		if (!(Math.abs(mCurrentValue - mTargetValue) > 0.01f)) {
+			return false;
+		}
+
+		if (-1 == mLastMoved) {
+			mLastMoved = now;
+		}
+		final float time = (now - mLastMoved) / 1000.0f;
+		final float direction = Math.signum(mVelocity);
+		if (Math.abs(mVelocity) < 90.0f) {
+			mAcceleration = 5.0f * (mTargetValue - mCurrentValue);
+		} else {
+			mAcceleration = 0.0f;
+		}
+
+		mAcceleration = 5.0f * (mTargetValue - mCurrentValue);
+		mCurrentValue += mVelocity * time;
+		mVelocity += mAcceleration * time;
+
+		if ((mTargetValue - mCurrentValue) * direction < 0.01f * direction) {
+			stop();
+		} else {
+			mLastMoved = now;
+		}
+		return true;
+	}
+
+	/**
+	 * Spaces the frames out while the needle tip moves too little per frame to be seen, which is at the start of a
+	 * move from rest and during small moves. The first frame towards a new target is never held back.
+	 *
+	 * @param tipTravel how far the needle tip travels over the whole scale, in pixels.
+	 * @param minDisplacement the smallest visible tip movement, in pixels.
+	 * @return how long to wait before the next frame in milliseconds.
+	 */
+	long getAdaptiveFrameDelay(final GaugeScale scale, final float tipTravel, final float minDisplacement) {
+		// Snap to the target once the rest of the way is too small to see
+		if (getTipDisplacement(scale, tipTravel, mCurrentValue, mTargetValue) < minDisplacement) {
+			stop();
+			return 0;
+		}
+
+		final boolean targetChanged = mTargetChanged;
+		mTargetChanged = false;
+		if (targetChanged) {
+			return 0;
+		}
+
+		// The tip movement of the next frame, if it is drawn after the usual frame time: the position moves with the
+		// current velocity, which keeps growing with the acceleration
+		final float frameTime = GaugeView.FRAME_DELAY / 1000.0f;
+		final float nextValue = mCurrentValue + (mVelocity + mAcceleration * frameTime) * frameTime;
+		final float displacement = getTipDisplacement(scale, tipTravel, mCurrentValue, nextValue);
+		if (displacement < minDisplacement) {
+			// Wait until the tip has moved far enough to be noticed
+			final long delay = (displacement > 0) ? (long) (GaugeView.FRAME_DELAY * minDisplacement / displacement)
+					: GaugeView.ADAPTIVE_MAX_FRAME_DELAY;
+			return Math.min(delay, GaugeView.ADAPTIVE_MAX_FRAME_DELAY);
+		}
+		return 0;
+	}
+
+	private static float getTipDisplacement(final GaugeScale scale, final float tipTravel, final float fromValue,
+			final float toValue) {
+		return Math.abs(scale.toFraction(toValue) - scale.toFraction(fromValue)) * tipTravel;
+	}
+}
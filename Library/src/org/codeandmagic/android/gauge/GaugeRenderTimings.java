@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Evelina Vrabie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.codeandmagic.android.gauge;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Collects render timings, e.g. from {@link GaugeView#setOnRenderTimeListener(GaugeView.OnRenderTimeListener)}, per
+ * test case and phase, writes them as a JSON report and checks them against budgets, so a benchmark can fail the build
+ * when rendering gets slower.
+ * <p>
+ * Budgets are properties in microseconds, compared with the median of each case. A {@code <case>/<phase>} key applies
+ * to one case; a {@code <phase>} key applies to every case without its own budget, e.g. {@code frame=16000}.
+ */
+public class GaugeRenderTimings implements GaugeView.OnRenderTimeListener {
+
+	public static final String PHASE_BACKGROUND = "background";
+	public static final String PHASE_FRAME = "frame";
+
+	public static final String DEFAULT_CASE = "default";
+
+	private final Map<String, Samples> mSamples = new LinkedHashMap<String, Samples>();
+	private String mCase = DEFAULT_CASE;
+
+	/**
+	 * Files the following timings under the given case, e.g. the size and configuration of the gauge being measured.
+	 */
+	public synchronized void setCase(final String name) {
+		mCase = name;
+	}
+
+	public synchronized void add(final String phase, final long nanos) {
+		final String key = mCase + "/" + phase;
+		Samples samples = mSamples.get(key);
+		if (null == samples) {
+			samples = new Samples(mCase, phase);
+			mSamples.put(key, samples);
+		}
+		samples.add(nanos);
+	}
+
+	@Override
+	public void onBackgroundRendered(final GaugeView gauge, final long nanos) {
+		add(PHASE_BACKGROUND, nanos);
+	}
+
+	@Override
+	public void onFrameRendered(final GaugeView gauge, final long nanos) {
+		add(PHASE_FRAME, nanos);
+	}
+
+	public synchronized int getCount(final String name, final String phase) {
+		final Samples samples = mSamples.get(name + "/" + phase);
+		return (null == samples) ? 0 : samples.mCount;
+	}
+
+	/**
+	 * @return the timing at the given percentile (0 to 100) in nanoseconds, or -1 if there are no timings.
+	 */
+	public synchronized long getPercentile(final String name, final String phase, final int percentile) {
+		final Samples samples = mSamples.get(name + "/" + phase);
+		return (null == samples) ? -1 : samples.getPercentile(percentile);
+	}
+
+	public synchronized void clear() {
+		mSamples.clear();
+	}
+
+	/**
+	 * Writes every case and phase with its sample count, median, 90th percentile and maximum in nanoseconds.
+	 */
+	public synchronized void writeReport(final Writer writer) throws IOException {
+		writer.write("{\n  \"timings\": [");
+		boolean first = true;
+		for (final Samples samples : mSamples.values()) {
+			writer.write(first ? "\n" : ",\n");
+			writer.write("    {\"case\": \"" + escape(samples.mCase) + "\", \"phase\": \"" + escape(samples.mPhase)
+					+ "\", \"count\": " + samples.mCount + ", \"medianNanos\": " + samples.getPercentile(50)
+					+ ", \"p90Nanos\": " + samples.getPercentile(90) + ", \"maxNanos\": " + samples.getPercentile(100)
+					+ "}");
+			first = false;
+		}
+		writer.write("\n  ]\n}\n");
+		writer.flush();
+	}
+
+	/**
+	 * @return a message for each case whose median is over its budget, or an empty list.
+	 */
+	public synchronized List<String> checkBudgets(final Properties budgets) {
+		final List<String> violations = new ArrayList<String>();
+		for (final Samples samples : mSamples.values()) {
+			String budget = budgets.getProperty(samples.mCase + "/" + samples.mPhase);
+			if (null == budget) {
+				budget = budgets.getProperty(samples.mPhase);
+			}
+			if (null == budget) {
+				continue;
+			}
+			final long budgetNanos = Long.parseLong(budget.trim()) * 1000L;
+			final long median = samples.getPercentile(50);
+			if (median > budgetNanos) {
+				violations.add(String.format("%s/%s: median %dus over the %sus budget", samples.mCase, samples.mPhase,
+						median / 1000L, budget.trim()));
+			}
+		}
+		return violations;
+	}
+
+	private static String escape(final String text) {
+		return text.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+
+	private static class Samples {
+
+		final String mCase;
+		final String mPhase;
+		long[] mNanos = new long[64];
+		int mCount;
+
+		Samples(final String name, final String phase) {
+			mCase = name;
+			mPhase = phase;
+		}
+
+		void add(final long nanos) {
+			if (mCount == mNanos.length) {
+				mNanos = Arrays.copyOf(mNanos, mCount * 2);
+			}
+			mNanos[mCount++] = nanos;
+		}
+
+		long getPercentile(final int percentile) {
+			if (0 == mCount) {
+				return -1;
+			}
+			final long[] sorted = Arrays.copyOf(mNanos, mCount);
+			Arrays.sort(sorted);
+			// Nearest rank
+			final int rank = (int) Math.ceil(percentile / 100.0 * mCount);
+			return sorted[Math.max(0, Math.min(mCount, rank) - 1)];
+		}
+	}
+}
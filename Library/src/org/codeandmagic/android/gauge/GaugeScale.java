@@ -0,0 +1,270 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Evelina Vrabie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.codeandmagic.android.gauge;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Maps the values of a {@link GaugeView} to positions along its scale, as a fraction of the scale's sweep (0 at the
+ * start angle, 1 at the end angle).
+ * <p>
+ * Non-linear mappings are sampled once into a lookup table when the scale is attached to a gauge, so the per-frame
+ * value to angle mapping of the needle is a binary search and a linear interpolation. The table holds the values at
+ * evenly spaced positions, so it is as dense where the scale is stretched (e.g. the start of a logarithmic scale) as
+ * anywhere else. The tick values are only needed when the background is drawn and are computed exactly.
+ */
+public abstract class GaugeScale {
+
+	public static final int TYPE_LINEAR = 0;
+	public static final int TYPE_LOGARITHMIC = 1;
+	public static final int TYPE_SQUARE_ROOT = 2;
+	public static final int TYPE_PIECEWISE = 3;
+
+	public static final int TABLE_SIZE = 512;
+
+	protected float mStartValue;
+	protected float mEndValue;
+
+	private float[] mValues;
+
+	public static GaugeScale linear() {
+		return new LinearScale();
+	}
+
+	/**
+	 * The start value of a logarithmic scale must be positive.
+	 */
+	public static GaugeScale logarithmic() {
+		return new LogarithmicScale();
+	}
+
+	public static GaugeScale squareRoot() {
+		return new SquareRootScale();
+	}
+
+	/**
+	 * A scale made of linear segments: {@code values[i]} is shown at {@code positions[i]} of the sweep. The start and
+	 * the end of the scale are always at 0 and 1, so only the breakpoints in between need to be given.
+	 */
+	public static GaugeScale piecewise(final float[] values, final float[] positions) {
+		return new PiecewiseScale(values, positions);
+	}
+
+	void prepare(final float startValue, final float endValue) {
+		mStartValue = startValue;
+		mEndValue = endValue;
+
+		mValues = new float[TABLE_SIZE + 1];
+		for (int i = 0; i <= TABLE_SIZE; i++) {
+			mValues[i] = (float) toValue((double) i / TABLE_SIZE, startValue, endValue);
+		}
+		mValues[0] = startValue;
+		mValues[TABLE_SIZE] = endValue;
+	}
+
+	/**
+	 * @return the position of the value along the scale, where 0 is the start and 1 is the end of the scale.
+	 */
+	public float toFraction(final float value) {
+		if (!(value > mValues[0])) {
+			return 0.0f;
+		}
+		if (value >= mValues[TABLE_SIZE]) {
+			return 1.0f;
+		}
+		// Find the last slot starting at or before the value
+		int low = 0;
+		int high = TABLE_SIZE;
+		while (high - low > 1) {
+			final int middle = (low + high) >>> 1;
+			if (mValues[middle] <= value) {
+				low = middle;
+			} else {
+				high = middle;
+			}
+		}
+		final float span = mValues[high] - mValues[low];
+		final float offset = (span > 0) ? (value - mValues[low]) / span : 0.0f;
+		return (low + offset) / TABLE_SIZE;
+	}
+
+	/**
+	 * @return the value shown at the given position along the scale.
+	 */
+	public float toValue(final double fraction) {
+		return (float) toValue(fraction, mStartValue, mEndValue);
+	}
+
+	/**
+	 * @return the values of the division ticks, from the start to the end of the scale. Non-linear scales round them
+	 *         to the fewest significant digits that keep them apart, so the labels show round values; the ticks are
+	 *         drawn where those values are.
+	 */
+	float[] getDivisionValues(final int divisions) {
+		final float[] values = new float[divisions + 1];
+		values[0] = mStartValue;
+		values[divisions] = mEndValue;
+		for (int i = 1; i < divisions; i++) {
+			final double value = toValue((double) i / divisions, mStartValue, mEndValue);
+			values[i] = (float) value;
+			for (int digits = 2; digits < 7; digits++) {
+				final float rounded = new BigDecimal(value).round(new MathContext(digits)).floatValue();
+				if (rounded > values[i - 1] && rounded < mEndValue) {
+					values[i] = rounded;
+					break;
+				}
+			}
+		}
+		return values;
+	}
+
+	String getDivisionLabel(final float value) {
+		if (value == (int) value) {
+			return String.format("%d", (int) value);
+		}
+		return new BigDecimal(Float.toString(value)).stripTrailingZeros().toPlainString();
+	}
+
+	protected abstract double toFraction(double value, double startValue, double endValue);
+
+	protected abstract double toValue(double fraction, double startValue, double endValue);
+
+	private static class LinearScale extends GaugeScale {
+
+		@Override
+		void prepare(final float startValue, final float endValue) {
+			// The formula is as cheap as the table, no need to sample it
+			mStartValue = startValue;
+			mEndValue = endValue;
+		}
+
+		@Override
+		public float toFraction(final float value) {
+			return (value - mStartValue) / (mEndValue - mStartValue);
+		}
+
+		@Override
+		float[] getDivisionValues(final int divisions) {
+			final float[] values = new float[divisions + 1];
+			for (int i = 0; i <= divisions; i++) {
+				values[i] = toValue((double) i / divisions);
+			}
+			return values;
+		}
+
+		@Override
+		String getDivisionLabel(final float value) {
+			return String.format("%d", (int) value);
+		}
+
+		@Override
+		protected double toFraction(final double value, final double startValue, final double endValue) {
+			return (value - startValue) / (endValue - startValue);
+		}
+
+		@Override
+		protected double toValue(final double fraction, final double startValue, final double endValue) {
+			return startValue + fraction * (endValue - startValue);
+		}
+	}
+
+	private static class LogarithmicScale extends GaugeScale {
+
+		@Override
+		void prepare(final float startValue, final float endValue) {
+			if (startValue <= 0) {
+				throw new IllegalArgumentException("A logarithmic scale must start above 0.");
+			}
+			super.prepare(startValue, endValue);
+		}
+
+		@Override
+		protected double toFraction(final double value, final double startValue, final double endValue) {
+			return Math.log(value / startValue) / Math.log(endValue / startValue);
+		}
+
+		@Override
+		protected double toValue(final double fraction, final double startValue, final double endValue) {
+			return startValue * Math.pow(endValue / startValue, fraction);
+		}
+	}
+
+	private static class SquareRootScale extends GaugeScale {
+
+		@Override
+		protected double toFraction(final double value, final double startValue, final double endValue) {
+			return Math.sqrt((value - startValue) / (endValue - startValue));
+		}
+
+		@Override
+		protected double toValue(final double fraction, final double startValue, final double endValue) {
+			return startValue + fraction * fraction * (endValue - startValue);
+		}
+	}
+
+	private static class PiecewiseScale extends GaugeScale {
+
+		private final float[] mBreakValues;
+		private final float[] mBreakPositions;
+
+		private double[] mValues;
+		private double[] mPositions;
+
+		public PiecewiseScale(final float[] values, final float[] positions) {
+			if (values.length != positions.length) {
+				throw new IllegalArgumentException("The breakpoint values and positions arrays must have the same length.");
+			}
+			mBreakValues = values;
+			mBreakPositions = positions;
+		}
+
+		@Override
+		void prepare(final float startValue, final float endValue) {
+			final int length = mBreakValues.length;
+			mValues = new double[length + 2];
+			mPositions = new double[length + 2];
+			mValues[0] = startValue;
+			mPositions[0] = 0.0;
+			for (int i = 0; i < length; i++) {
+				mValues[i + 1] = mBreakValues[i];
+				mPositions[i + 1] = mBreakPositions[i];
+				if (mValues[i + 1] < mValues[i] || mPositions[i + 1] < mPositions[i]) {
+					throw new IllegalArgumentException("The breakpoints must be in ascending order within the scale.");
+				}
+			}
+			if (mValues[length] > endValue || mPositions[length] > 1.0) {
+				throw new IllegalArgumentException("The breakpoints must be in ascending order within the scale.");
+			}
+			mValues[length + 1] = endValue;
+			mPositions[length + 1] = 1.0;
+			super.prepare(startValue, endValue);
+		}
+
+		@Override
+		protected double toFraction(final double value, final double startValue, final double endValue) {
+			return interpolate(value, mValues, mPositions);
+		}
+
+		@Override
+		protected double toValue(final double fraction, final double startValue, final double endValue) {
+			return interpolate(fraction, mPositions, mValues);
+		}
+
+		private static double interpolate(final double x, final double[] xs, final double[] ys) {
+			final int last = xs.length - 1;
+			for (int i = 0; i < last; i++) {
+				if (x <= xs[i + 1]) {
+					final double span = xs[i + 1] - xs[i];
+					return (span > 0) ? ys[i] + (ys[i + 1] - ys[i]) * (x - xs[i]) / span : ys[i];
+				}
+			}
+			return ys[last];
+		}
+	}
+}
@@ -0,0 +1,268 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Evelina Vrabie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.codeandmagic.android.gauge;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.PixelFormat;
+import android.graphics.PorterDuff;
+import android.os.Bundle;
+import android.os.Parcelable;
+import android.util.AttributeSet;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
+
+/**
+ * A gauge that draws on its own surface from a dedicated render thread, so the needle keeps moving smoothly while the
+ * UI thread is busy with layout, input or other views.
+ * <p>
+ * It accepts the same attributes as {@link GaugeView} and uses an (unattached) {@link GaugeView} to draw, so the
+ * scale, needle physics and cached background are exactly the same. The render thread sleeps while the needle is at
+ * rest; while it moves, frames are paced by the surface's buffer queue, which releases a buffer once per vsync.
+ * <p>
+ * The surface is translucent and placed as a media overlay: above other surfaces such as video, but below the views of
+ * its window, so dialogs, popups and overlapping views still draw over the gauge. The surface punches a hole through
+ * the window though, so the corners around the round gauge show what is behind the window rather than the parent's
+ * background. To draw the gauge above everything instead, and blend it with the window content, call
+ * {@link #setZOrderOnTop(boolean)} with true before the view is attached; it then also covers the window's other
+ * views, so only do it when nothing overlaps the gauge.
+ * <p>
+ * A GaugeSurfaceView must not have a background: it is drawn in the window, above the media overlay surface, and
+ * would hide the gauge. The attribute is not passed on to the gauge drawn on the surface either.
+ */
+public class GaugeSurfaceView extends SurfaceView implements SurfaceHolder.Callback {
+
+	private final GaugeView mGauge;
+	private final Object mLock = new Object();
+
+	private RenderThread mRenderThread;
+	private boolean mDirty;
+
+	public GaugeSurfaceView(final Context context, final AttributeSet attrs, final int defStyle) {
+		super(context, attrs, defStyle);
+		mGauge = new GaugeView(context, attrs, defStyle);
+		// The gauge shares the view attributes, but android:background belongs in the window, not on the surface
+		mGauge.setBackgroundDrawable(null);
+
+		final SurfaceHolder holder = getHolder();
+		holder.setFormat(PixelFormat.TRANSLUCENT);
+		holder.addCallback(this);
+		setZOrderMediaOverlay(true);
+	}
+
+	public GaugeSurfaceView(final Context context, final AttributeSet attrs) {
+		this(context, attrs, 0);
+	}
+
+	public GaugeSurfaceView(final Context context) {
+		this(context, null, 0);
+	}
+
+	@Override
+	protected void onMeasure(final int widthMeasureSpec, final int heightMeasureSpec) {
+		mGauge.measure(widthMeasureSpec, heightMeasureSpec);
+		setMeasuredDimension(mGauge.getMeasuredWidth(), mGauge.getMeasuredHeight());
+	}
+
+	@Override
+	protected Parcelable onSaveInstanceState() {
+		final Parcelable superState = super.onSaveInstanceState();
+
+		final Bundle state = new Bundle();
+		state.putParcelable("superState", superState);
+		synchronized (mLock) {
+			state.putParcelable("gaugeState", mGauge.onSaveInstanceState());
+		}
+		return state;
+	}
+
+	@Override
+	protected void onRestoreInstanceState(final Parcelable state) {
+		final Bundle bundle = (Bundle) state;
+		final Parcelable superState = bundle.getParcelable("superState");
+		super.onRestoreInstanceState(superState);
+
+		synchronized (mLock) {
+			mGauge.onRestoreInstanceState(bundle.getParcelable("gaugeState"));
+			requestRenderLocked();
+		}
+	}
+
+	@Override
+	public void surfaceCreated(final SurfaceHolder holder) {
+		mRenderThread = new RenderThread(holder);
+		mRenderThread.start();
+	}
+
+	@Override
+	public void surfaceChanged(final SurfaceHolder holder, final int format, final int width, final int height) {
+		synchronized (mLock) {
+			// Laying out the gauge rebuilds its background at the new size
+			mGauge.layout(0, 0, width, height);
+			requestRenderLocked();
+		}
+	}
+
+	@Override
+	public void surfaceDestroyed(final SurfaceHolder holder) {
+		mRenderThread.quit();
+		mRenderThread = null;
+	}
+
+	public void setValueRecorder(final GaugeValueRecorder recorder) {
+		synchronized (mLock) {
+			mGauge.setValueRecorder(recorder);
+		}
+	}
+
+	/**
+	 * The listener is called on the render thread.
+	 */
+	public void setOnRenderTimeListener(final GaugeView.OnRenderTimeListener listener) {
+		synchronized (mLock) {
+			mGauge.setOnRenderTimeListener(listener);
+		}
+	}
+
+	public void setScale(final GaugeScale scale) {
+		synchronized (mLock) {
+			mGauge.setScale(scale);
+			requestRenderLocked();
+		}
+	}
+
+	public void setAdaptiveFrameRate(final boolean adaptive) {
+		synchronized (mLock) {
+			mGauge.setAdaptiveFrameRate(adaptive);
+		}
+	}
+
+	public boolean isAdaptiveFrameRate() {
+		synchronized (mLock) {
+			return mGauge.isAdaptiveFrameRate();
+		}
+	}
+
+	public void setTextAtlas(final boolean textAtlas) {
+		synchronized (mLock) {
+			mGauge.setTextAtlas(textAtlas);
+			requestRenderLocked();
+		}
+	}
+
+	public int addNeedle(final int color) {
+		synchronized (mLock) {
+			return mGauge.addNeedle(color);
+		}
+	}
+
+	public void setTargetValue(final float value) {
+		setTargetValue(0, value);
+	}
+
+	public void setTargetValue(final int index, final float value) {
+		synchronized (mLock) {
+			mGauge.setTargetValue(index, value);
+			requestRenderLocked();
+		}
+	}
+
+	public void setValue(final float value) {
+		setValue(0, value);
+	}
+
+	/**
+	 * @see GaugeView#setValue(int, float)
+	 */
+	public void setValue(final int index, final float value) {
+		synchronized (mLock) {
+			mGauge.setValue(index, value);
+			requestRenderLocked();
+		}
+	}
+
+	/**
+	 * @see GaugeView#reset()
+	 */
+	public void reset() {
+		synchronized (mLock) {
+			mGauge.reset();
+			requestRenderLocked();
+		}
+	}
+
+	private void requestRenderLocked() {
+		mDirty = true;
+		mLock.notifyAll();
+	}
+
+	private class RenderThread extends Thread {
+
+		private final SurfaceHolder mHolder;
+		private boolean mRunning = true;
+
+		public RenderThread(final SurfaceHolder holder) {
+			super("GaugeRenderThread");
+			mHolder = holder;
+		}
+
+		@Override
+		public void run() {
+			while (true) {
+				synchronized (mLock) {
+					while (mRunning && !mDirty) {
+						try {
+							mLock.wait();
+						} catch (final InterruptedException e) {
+							return;
+						}
+					}
+					if (!mRunning) {
+						return;
+					}
+				}
+
+				final Canvas canvas = mHolder.lockCanvas();
+				if (null == canvas) {
+					// The surface is going away, wait for surfaceDestroyed()
+					synchronized (mLock) {
+						mDirty = false;
+					}
+					continue;
+				}
+				try {
+					synchronized (mLock) {
+						canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+						mGauge.draw(canvas);
+						mDirty = mGauge.isAnimating();
+					}
+				} finally {
+					// Blocks until the next buffer is free, which keeps the animation on vsync
+					mHolder.unlockCanvasAndPost(canvas);
+				}
+			}
+		}
+
+		public void quit() {
+			synchronized (mLock) {
+				mRunning = false;
+				mLock.notifyAll();
+			}
+			boolean joined = false;
+			while (!joined) {
+				try {
+					join();
+					joined = true;
+				} catch (final InterruptedException e) {
+					// Keep waiting, the surface must not be touched after surfaceDestroyed() returns
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,228 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Evelina Vrabie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.codeandmagic.android.gauge;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Records every value passed to {@link GaugeView#setTargetValue(float)} into a binary file, so the exact value stream
+ * can later be fed back with {@link GaugeValueReplayer}.
+ * <p>
+ * The file starts with a header (magic, version) followed by fixed size records of a monotonic timestamp in
+ * nanoseconds ({@link System#nanoTime()}) and the value. Records are collected in direct buffers; full buffers are
+ * handed to a background thread that writes them through a {@link FileChannel}, so {@link #record(float)} never touches
+ * the disk and can be called from the main thread.
+ * <p>
+ * {@link #flush()} and {@link #close()} wait for the background thread to write everything, so call them from a worker
+ * thread rather than the main thread. Recording doesn't wait for them: values recorded meanwhile are kept for the next
+ * write.
+ * <p>
+ * A file holds exactly one recording session, since timestamps from another process or boot can't be put on the same
+ * timeline. Recording is only diagnostics, so a write error never reaches the caller of {@link #record(float)}: the
+ * recorder stops and reports the error from {@link #flush()} and {@link #close()} instead.
+ */
+public class GaugeValueRecorder implements Closeable {
+
+	static final int MAGIC = 0x47565243; // "GVRC"
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 8;
+	static final int RECORD_SIZE = 12;
+
+	public static final int BUFFER_RECORDS = 512;
+
+	private final FileOutputStream mStream;
+	private final FileChannel mChannel;
+	private final int mBufferSize;
+	private final ExecutorService mWriter;
+	private final Queue<ByteBuffer> mFreeBuffers = new ConcurrentLinkedQueue<ByteBuffer>();
+
+	private ByteBuffer mBuffer;
+	private boolean mClosed;
+	private volatile IOException mError;
+
+	public GaugeValueRecorder(final File file) throws IOException {
+		this(file, BUFFER_RECORDS);
+	}
+
+	/**
+	 * @throws IOException if the file already holds a recording, or can't be opened.
+	 */
+	public GaugeValueRecorder(final File file, final int bufferRecords) throws IOException {
+		if (bufferRecords < 1) {
+			throw new IllegalArgumentException("The buffer must hold at least one record.");
+		}
+		if (file.length() > 0) {
+			throw new IOException("Won't append to an existing recording: " + file);
+		}
+		mStream = new FileOutputStream(file);
+		mChannel = mStream.getChannel();
+		mBufferSize = Math.max(HEADER_SIZE, bufferRecords * RECORD_SIZE);
+		mWriter = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				final Thread thread = new Thread(runnable, "GaugeValueRecorder");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		// The header goes out with the first buffer
+		mBuffer = ByteBuffer.allocateDirect(mBufferSize);
+		mBuffer.putInt(MAGIC);
+		mBuffer.putInt(VERSION);
+	}
+
+	public void record(final float value) {
+		record(System.nanoTime(), value);
+	}
+
+	public synchronized void record(final long timestamp, final float value) {
+		if (mClosed || null != mError) {
+			return;
+		}
+		if (mBuffer.remaining() < RECORD_SIZE) {
+			submitBuffer();
+		}
+		mBuffer.putLong(timestamp);
+		mBuffer.putFloat(value);
+	}
+
+	/**
+	 * @return the write error that stopped the recording, or null.
+	 */
+	public IOException getError() {
+		return mError;
+	}
+
+	/**
+	 * Writes all the values recorded so far to the disk and waits until they are there. Not for the main thread.
+	 */
+	public void flush() throws IOException {
+		final Future<?> written;
+		synchronized (this) {
+			throwError();
+			if (mClosed) {
+				return;
+			}
+			submitBuffer();
+			written = mWriter.submit(new Callable<Void>() {
+
+				@Override
+				public Void call() throws IOException {
+					if (null == mError) {
+						mChannel.force(false);
+					}
+					return null;
+				}
+			});
+		}
+		await(written);
+		throwError();
+	}
+
+	/**
+	 * Writes the remaining values and closes the file, waiting for both. Not for the main thread.
+	 */
+	@Override
+	public void close() throws IOException {
+		final Future<?> closed;
+		synchronized (this) {
+			if (mClosed) {
+				throwError();
+				return;
+			}
+			mClosed = true;
+			submitBuffer();
+			closed = mWriter.submit(new Callable<Void>() {
+
+				@Override
+				public Void call() throws IOException {
+					mStream.close();
+					return null;
+				}
+			});
+			mWriter.shutdown();
+		}
+		await(closed);
+		throwError();
+	}
+
+	private void submitBuffer() {
+		final ByteBuffer buffer = mBuffer;
+		mWriter.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				write(buffer);
+				mFreeBuffers.offer(buffer);
+			}
+		});
+
+		// Only allocates while the disk is behind
+		mBuffer = mFreeBuffers.poll();
+		if (null == mBuffer) {
+			mBuffer = ByteBuffer.allocateDirect(mBufferSize);
+		}
+	}
+
+	/**
+	 * Runs on the writer thread.
+	 */
+	private void write(final ByteBuffer buffer) {
+		buffer.flip();
+		try {
+			while (null == mError && buffer.hasRemaining()) {
+				mChannel.write(buffer);
+			}
+		} catch (final IOException e) {
+			mError = e;
+			try {
+				mStream.close();
+			} catch (final IOException closeError) {
+				// Already failing, the first error is the one to report
+			}
+		} finally {
+			buffer.clear();
+		}
+	}
+
+	private void await(final Future<?> future) throws IOException {
+		try {
+			future.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the recording to be written.");
+		} catch (final ExecutionException e) {
+			if (null == mError) {
+				final Throwable cause = e.getCause();
+				mError = (cause instanceof IOException) ? (IOException) cause : new IOException(cause);
+			}
+		}
+	}
+
+	private void throwError() throws IOException {
+		if (null != mError) {
+			throw new IOException("The recording stopped after a write error.", mError);
+		}
+	}
+}
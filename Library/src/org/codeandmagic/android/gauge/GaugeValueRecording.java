@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Evelina Vrabie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.codeandmagic.android.gauge;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A value stream written by {@link GaugeValueRecorder}, decoded from a memory mapped file. A trailing partial record
+ * (e.g. from a crashed recording) is ignored.
+ */
+class GaugeValueRecording {
+
+	private final long[] mTimestamps;
+	private final float[] mValues;
+
+	GaugeValueRecording(final File file) throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			final FileChannel channel = raf.getChannel();
+			final long size = channel.size();
+			if (size < GaugeValueRecorder.HEADER_SIZE) {
+				throw new IOException("Not a gauge value recording: " + file);
+			}
+			final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			if (GaugeValueRecorder.MAGIC != buffer.getInt()) {
+				throw new IOException("Not a gauge value recording: " + file);
+			}
+			final int version = buffer.getInt();
+			if (GaugeValueRecorder.VERSION != version) {
+				throw new IOException("Unsupported recording version " + version + ": " + file);
+			}
+
+			final int count = (int) ((size - GaugeValueRecorder.HEADER_SIZE) / GaugeValueRecorder.RECORD_SIZE);
+			mTimestamps = new long[count];
+			mValues = new float[count];
+			for (int i = 0; i < count; i++) {
+				mTimestamps[i] = buffer.getLong();
+				mValues[i] = buffer.getFloat();
+			}
+		} finally {
+			raf.close();
+		}
+	}
+
+	int getCount() {
+		return mValues.length;
+	}
+
+	long getTimestamp(final int index) {
+		return mTimestamps[index];
+	}
+
+	float getValue(final int index) {
+		return mValues[index];
+	}
+
+	/**
+	 * @return the duration of the recording, in milliseconds.
+	 */
+	long getDuration() {
+		final int count = mTimestamps.length;
+		return (count < 2) ? 0 : (mTimestamps[count - 1] - mTimestamps[0]) / 1000000L;
+	}
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Evelina Vrabie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.codeandmagic.android.gauge;
+
+import java.io.File;
+import java.io.IOException;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+/**
+ * Feeds a value stream captured by {@link GaugeValueRecorder} back into one or more gauges, keeping the original
+ * timing or running it faster by a constant factor.
+ * <p>
+ * The file is memory mapped and decoded once. Values are delivered on the main thread.
+ */
+public class GaugeValueReplayer {
+
+	public interface OnReplayFinishedListener {
+		void onReplayFinished(GaugeValueReplayer replayer);
+	}
+
+	private final GaugeValueRecording mRecording;
+
+	private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+	private GaugeView[] mGauges;
+	private float mSpeed;
+	private long mStartTime;
+	private int mPosition;
+	private OnReplayFinishedListener mListener;
+
+	public GaugeValueReplayer(final File file) throws IOException {
+		mRecording = new GaugeValueRecording(file);
+	}
+
+	public int getCount() {
+		return mRecording.getCount();
+	}
+
+	/**
+	 * @return the duration of the recording at its original speed, in milliseconds.
+	 */
+	public long getDuration() {
+		return mRecording.getDuration();
+	}
+
+	public void setOnReplayFinishedListener(final OnReplayFinishedListener listener) {
+		mListener = listener;
+	}
+
+	public void start(final GaugeView... gauges) {
+		start(1.0f, gauges);
+	}
+
+	/**
+	 * Starts (or restarts) the replay. A speed of 2 plays the recording twice as fast as it was captured.
+	 */
+	public void start(final float speed, final GaugeView... gauges) {
+		if (speed <= 0) {
+			throw new IllegalArgumentException("The replay speed must be positive.");
+		}
+		stop();
+		mGauges = gauges;
+		mSpeed = speed;
+		mPosition = 0;
+		mStartTime = SystemClock.uptimeMillis();
+		scheduleNext();
+	}
+
+	public void stop() {
+		mHandler.removeCallbacks(mReplayRunnable);
+		mGauges = null;
+	}
+
+	public boolean isRunning() {
+		return null != mGauges && mPosition < mRecording.getCount();
+	}
+
+	private void scheduleNext() {
+		if (mPosition < mRecording.getCount()) {
+			mHandler.postAtTime(mReplayRunnable, getReplayTime(mPosition));
+		} else if (null != mListener) {
+			mListener.onReplayFinished(this);
+		}
+	}
+
+	private long getReplayTime(final int position) {
+		return mStartTime + (long) ((mRecording.getTimestamp(position) - mRecording.getTimestamp(0)) / 1000000L / mSpeed);
+	}
+
+	private final Runnable mReplayRunnable = new Runnable() {
+
+		@Override
+		public void run() {
+			// Deliver every value that is due, so a busy main thread doesn't slow the replay down
+			final long now = SystemClock.uptimeMillis();
+			do {
+				final float value = mRecording.getValue(mPosition++);
+				for (final GaugeView gauge : mGauges) {
+					gauge.setTargetValue(value);
+				}
+			} while (mPosition < mRecording.getCount() && getReplayTime(mPosition) <= now);
+			scheduleNext();
+		}
+	};
+}
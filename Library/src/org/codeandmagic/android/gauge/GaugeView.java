@@ -7,8 +7,15 @@
  *******************************************************************************/
 package org.codeandmagic.android.gauge;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import android.annotation.TargetApi;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.content.res.TypedArray;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
@@ -21,10 +28,12 @@ import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.Paint.Align;
 import android.graphics.Path;
+import android.graphics.Rect;
 import android.graphics.PorterDuff;
 import android.graphics.RadialGradient;
 import android.graphics.RectF;
 import android.graphics.Shader.TileMode;
+import android.graphics.SweepGradient;
 import android.graphics.Typeface;
 import android.os.Build;
 import android.os.Bundle;
@@ -35,6 +44,21 @@ import android.view.View;
 
 public class GaugeView extends View {
 
+	/**
+	 * Reports how long the gauge takes to render, e.g. to catch rendering regressions in benchmarks.
+	 */
+	public interface OnRenderTimeListener {
+		/**
+		 * Called after the static background was rebuilt, or taken from the pool, for a new size.
+		 */
+		void onBackgroundRendered(GaugeView gauge, long nanos);
+
+		/**
+		 * Called after each frame, including the background rebuild if it had to be done lazily.
+		 */
+		void onFrameRendered(GaugeView gauge, long nanos);
+	}
+
 	public static final int SIZE = 300;
 	public static final float TOP = 0.0f;
 	public static final float LEFT = 0.0f;
@@ -59,12 +83,19 @@ public class GaugeView extends View {
 	public static final float NEEDLE_WIDTH = 0.035f;
 	public static final float NEEDLE_HEIGHT = 0.28f;
 
+	public static final boolean ADAPTIVE_FRAME_RATE = false;
+	public static final float ADAPTIVE_MIN_DISPLACEMENT = 0.5f;
+	public static final long FRAME_DELAY = 16;
+	public static final long ADAPTIVE_MAX_FRAME_DELAY = 100;
+
 	public static final float SCALE_POSITION = 0.025f;
 	public static final float SCALE_START_VALUE = 0.0f;
     public static final float SCALE_END_VALUE = 100.0f;
 	public static final float SCALE_START_ANGLE = 30.0f;
 	public static final int SCALE_DIVISIONS = 10;
 	public static final int SCALE_SUBDIVISIONS = 5;
+	public static final int SCALE_TYPE = GaugeScale.TYPE_LINEAR;
+	public static final float SCALE_LABEL_MAGNIFIER = 1000.0f;
 
 	public static final int[] OUTER_SHADOW_COLORS = { Color.argb(40, 255, 254, 187), Color.argb(20, 255, 247, 219),
 			Color.argb(5, 255, 255, 255) };
@@ -73,12 +104,21 @@ public class GaugeView extends View {
     public static final float[] RANGE_VALUES = {16.0f, 25.0f, 40.0f, 100.0f};
     public static final int[] RANGE_COLORS = {Color.rgb(231, 32, 43), Color.rgb(232, 111, 33),
                                               Color.rgb(232, 231, 33), Color.rgb(27, 202, 33)};
+	public static final int RANGE_BANDS_NONE = 0;
+	public static final int RANGE_BANDS_SOLID = 1;
+	public static final int RANGE_BANDS_GRADIENT = 2;
+	public static final int RANGE_BANDS = RANGE_BANDS_NONE;
+	public static final float RANGE_BAND_WIDTH = 0.015f;
 
 	public static final int TEXT_SHADOW_COLOR = Color.argb(100, 0, 0, 0);
 	public static final int TEXT_VALUE_COLOR = Color.WHITE;
 	public static final int TEXT_UNIT_COLOR = Color.WHITE;
 	public static final float TEXT_VALUE_SIZE = 0.3f;
 	public static final float TEXT_UNIT_SIZE = 0.1f;
+	public static final float TEXT_SHADOW_RADIUS = 0.01f;
+	public static final float TEXT_SHADOW_OFFSET = 0.002f;
+	public static final boolean TEXT_ATLAS = false;
+	public static final String[] TEXT_ATLAS_GLYPHS = { "0", "1", "2", "3", "4", "5", "6", "7", "8", "9", "-", "." };
 
 	// *--------------------------------------------------------------------- *//
 	// Customizable properties
@@ -100,15 +140,20 @@ public class GaugeView extends View {
 	private float mInnerRimBorderWidth;
 	private float mNeedleWidth;
 	private float mNeedleHeight;
+	private boolean mAdaptiveFrameRate;
+	private float mAdaptiveMinDisplacement;
 
 	private float mScalePosition;
 	private float mScaleStartValue;
 	private float mScaleEndValue;
 	private float mScaleStartAngle;
     private float mScaleEndAngle;
+	private GaugeScale mScale;
 	private float[] mRangeValues;
 
 	private int[] mRangeColors;
+	private int mRangeBands;
+	private float mRangeBandWidth;
 	private int mDivisions;
 	private int mSubdivisions;
 
@@ -119,8 +164,15 @@ public class GaugeView extends View {
 	private RectF mInnerRimBorderRect;
 	private RectF mFaceRect;
 	private RectF mScaleRect;
+	private RectF mRangeBandRect;
 
 	private Bitmap mBackground;
+	private boolean mBackgroundPooled;
+	private GaugeBackgroundPool mBackgroundPool;
+	private Rect mBackgroundRect;
+
+	private TrimMemoryCallbacks mTrimMemoryCallbacks;
+	private int mTrimMemoryLevel;
 	private Paint mBackgroundPaint;
 	private Paint mOuterShadowPaint;
 	private Paint mOuterBorderPaint;
@@ -132,8 +184,8 @@ public class GaugeView extends View {
 	private Paint mFaceBorderPaint;
 	private Paint mFaceShadowPaint;
 	private Paint[] mRangePaints;
-	private Paint mNeedleRightPaint;
-	private Paint mNeedleLeftPaint;
+	private Paint mRangeBandPaint;
+	private Paint mScaleLabelPaint;
 	private Paint mNeedleScrewPaint;
 	private Paint mNeedleScrewBorderPaint;
 	private Paint mTextValuePaint;
@@ -146,24 +198,26 @@ public class GaugeView extends View {
 	private int mTextShadowColor;
 	private float mTextValueSize;
 	private float mTextUnitSize;
+	private boolean mTextAtlas;
+
+	private GaugeGlyphAtlas mTextValueAtlas;
+	private GaugeGlyphAtlas mTextUnitAtlas;
+	private final char[] mTextBuffer = new char[12];
+	private final int[] mTextGlyphs = new int[mTextBuffer.length];
 
 	private Path mNeedleRightPath;
 	private Path mNeedleLeftPath;
+	private final Map<String, Path> mScaleLabelPaths = new HashMap<String, Path>();
 
 	// *--------------------------------------------------------------------- *//
 
 	private float mScaleRotation;
-	private float mDivisionValue;
-	private float mSubdivisionValue;
-	private float mSubdivisionAngle;
+	private float[] mDivisionValues;
 
-	private float mTargetValue;
-	private float mCurrentValue;
+	private final List<GaugeNeedle> mNeedles = new ArrayList<GaugeNeedle>();
 
-	private float mNeedleVelocity;
-	private float mNeedleAcceleration;
-	private long mNeedleLastMoved = -1;
-	private boolean mNeedleInitialized;
+	private GaugeValueRecorder mValueRecorder;
+	private OnRenderTimeListener mRenderTimeListener;
 
 	public GaugeView(final Context context, final AttributeSet attrs, final int defStyle) {
 		super(context, attrs, defStyle);
@@ -198,6 +252,8 @@ public class GaugeView extends View {
 
 		mNeedleWidth = a.getFloat(R.styleable.GaugeView_needleWidth, NEEDLE_WIDTH);
 		mNeedleHeight = a.getFloat(R.styleable.GaugeView_needleHeight, NEEDLE_HEIGHT);
+		mAdaptiveFrameRate = a.getBoolean(R.styleable.GaugeView_adaptiveFrameRate, ADAPTIVE_FRAME_RATE);
+		mAdaptiveMinDisplacement = a.getFloat(R.styleable.GaugeView_adaptiveMinDisplacement, ADAPTIVE_MIN_DISPLACEMENT);
 
 		mScalePosition = (mShowScale || mShowRanges) ? a.getFloat(R.styleable.GaugeView_scalePosition, SCALE_POSITION) : 0.0f;
 		mScaleStartValue = a.getFloat(R.styleable.GaugeView_scaleStartValue, SCALE_START_VALUE);
@@ -208,12 +264,20 @@ public class GaugeView extends View {
 		mDivisions = a.getInteger(R.styleable.GaugeView_divisions, SCALE_DIVISIONS);
 		mSubdivisions = a.getInteger(R.styleable.GaugeView_subdivisions, SCALE_SUBDIVISIONS);
 
+		final int scaleType = a.getInt(R.styleable.GaugeView_scaleType, SCALE_TYPE);
+		final CharSequence[] scaleBreakValues = a.getTextArray(R.styleable.GaugeView_scaleBreakValues);
+		final CharSequence[] scaleBreakPositions = a.getTextArray(R.styleable.GaugeView_scaleBreakPositions);
+		readScale(scaleType, scaleBreakValues, scaleBreakPositions);
+
 		if (mShowRanges) {
 			mTextShadowColor = a.getColor(R.styleable.GaugeView_textShadowColor, TEXT_SHADOW_COLOR);
 
             final CharSequence[] rangeValues = a.getTextArray(R.styleable.GaugeView_rangeValues);
             final CharSequence[] rangeColors = a.getTextArray(R.styleable.GaugeView_rangeColors);
             readRanges(rangeValues, rangeColors);
+
+			mRangeBands = a.getInt(R.styleable.GaugeView_rangeBands, RANGE_BANDS);
+			mRangeBandWidth = a.getFloat(R.styleable.GaugeView_rangeBandWidth, RANGE_BAND_WIDTH);
 		}
 
 		if (mShowText) {
@@ -230,6 +294,7 @@ public class GaugeView extends View {
 
 			mTextValueSize = a.getFloat(R.styleable.GaugeView_textValueSize, TEXT_VALUE_SIZE);
 			mTextUnitSize = a.getFloat(R.styleable.GaugeView_textUnitSize, TEXT_UNIT_SIZE);
+			mTextAtlas = a.getBoolean(R.styleable.GaugeView_textAtlas, TEXT_ATLAS);
 		}
 
 		a.recycle();
@@ -276,6 +341,35 @@ public class GaugeView extends View {
 		}
 	}
 
+	private void readScale(final int scaleType, final CharSequence[] breakValues, final CharSequence[] breakPositions) {
+		switch (scaleType) {
+		case GaugeScale.TYPE_LOGARITHMIC:
+			mScale = GaugeScale.logarithmic();
+			break;
+		case GaugeScale.TYPE_SQUARE_ROOT:
+			mScale = GaugeScale.squareRoot();
+			break;
+		case GaugeScale.TYPE_PIECEWISE:
+			if (null == breakValues || null == breakPositions || breakValues.length != breakPositions.length) {
+				throw new IllegalArgumentException(
+						"A piecewise scale needs break values and positions arrays of the same length.");
+			}
+			final int length = breakValues.length;
+			final float[] values = new float[length];
+			final float[] positions = new float[length];
+			for (int i = 0; i < length; i++) {
+				values[i] = Float.parseFloat(breakValues[i].toString());
+				positions[i] = Float.parseFloat(breakPositions[i].toString());
+			}
+			mScale = GaugeScale.piecewise(values, positions);
+			break;
+		case GaugeScale.TYPE_LINEAR:
+		default:
+			mScale = GaugeScale.linear();
+			break;
+		}
+	}
+
 	@TargetApi(11)
 	private void init() {
 		// TODO Why isn't this working with HA layer?
@@ -285,13 +379,14 @@ public class GaugeView extends View {
 			setLayerType(View.LAYER_TYPE_SOFTWARE, null);
 		}
 
+		// The first needle always exists, it also drives the text value
+		mNeedles.add(new GaugeNeedle());
+
 		initDrawingRects();
 		initDrawingTools();
 
-		// Compute the scale properties
-		if (mShowRanges) {
-			initScale();
-		}
+		// Compute the scale properties, the needle needs them even without ranges
+		initScale();
 	}
 
 	public void initDrawingRects() {
@@ -317,6 +412,10 @@ public class GaugeView extends View {
 
 		mScaleRect = new RectF(mFaceRect.left + mScalePosition, mFaceRect.top + mScalePosition, mFaceRect.right - mScalePosition,
 				mFaceRect.bottom - mScalePosition);
+
+		// The bands run along the outer end of the ticks
+		mRangeBandRect = new RectF(mScaleRect.left + mRangeBandWidth / 2, mScaleRect.top + mRangeBandWidth / 2,
+				mScaleRect.right - mRangeBandWidth / 2, mScaleRect.bottom - mRangeBandWidth / 2);
 	}
 
 	private void initDrawingTools() {
@@ -342,8 +441,9 @@ public class GaugeView extends View {
 		}
 		if (mShowNeedle) {
 			setDefaultNeedlePaths();
-			mNeedleLeftPaint = getDefaultNeedleLeftPaint();
-			mNeedleRightPaint = getDefaultNeedleRightPaint();
+			final GaugeNeedle needle = mNeedles.get(0);
+			needle.mLeftPaint = getDefaultNeedleLeftPaint();
+			needle.mRightPaint = getDefaultNeedleRightPaint();
 			mNeedleScrewPaint = getDefaultNeedleScrewPaint();
 			mNeedleScrewBorderPaint = getDefaultNeedleScrewBorderPaint();
 		}
@@ -468,6 +568,20 @@ public class GaugeView extends View {
 		return paint;
 	}
 
+	public Paint getNeedleLeftPaint(final int color) {
+		// The left half is the shaded side of the needle
+		final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+		paint.setColor(Color.rgb(Color.red(color) * 7 / 10, Color.green(color) * 7 / 10, Color.blue(color) * 7 / 10));
+		return paint;
+	}
+
+	public Paint getNeedleRightPaint(final int color) {
+		final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+		paint.setColor(color);
+		paint.setShadowLayer(0.01f, 0.005f, -0.005f, Color.argb(127, 0, 0, 0));
+		return paint;
+	}
+
 	public Paint getDefaultNeedleScrewPaint() {
 		final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
 		paint.setShader(new RadialGradient(0.5f, 0.5f, 0.07f, new int[]{Color.rgb(171, 171, 171), Color.WHITE}, new float[]{0.05f,
@@ -496,6 +610,60 @@ public class GaugeView extends View {
 			mRangePaints[i].setTextAlign(Align.CENTER);
 			mRangePaints[i].setShadowLayer(0.005f, 0.002f, 0.002f, mTextShadowColor);
 		}
+
+		// Only used to turn the labels into paths, with the same font as the range paints
+		mScaleLabelPaint = new Paint(mRangePaints[0]);
+		mScaleLabelPaint.setTextSize(mRangePaints[0].getTextSize() * SCALE_LABEL_MAGNIFIER);
+		mScaleLabelPaths.clear();
+	}
+
+	public Paint getDefaultRangeBandPaint() {
+		// On the arc and on the sweep gradient 0 degrees is East, while the scale rotation is measured from North
+		final float startAngle = mScaleRotation - 90;
+		final float sweep = (mScaleEndAngle - mScaleStartAngle) / 360.0f;
+		final int length = mRangeValues.length;
+
+		final int[] colors;
+		final float[] positions;
+		if (RANGE_BANDS_SOLID == mRangeBands) {
+			// Two stops per band at its ends, so the colors change sharply at the range values
+			colors = new int[2 * length];
+			positions = new float[2 * length];
+			for (int i = 0; i < length; i++) {
+				colors[2 * i] = mRangeColors[i];
+				colors[2 * i + 1] = mRangeColors[i];
+				positions[2 * i] = getRangeBandPosition((0 == i) ? mScaleStartValue : mRangeValues[i - 1]) * sweep;
+				positions[2 * i + 1] = getRangeBandPosition(mRangeValues[i]) * sweep;
+			}
+		} else {
+			// One stop in the middle of each band, blending into the next one
+			colors = new int[Math.max(2, length)];
+			positions = new float[colors.length];
+			for (int i = 0; i < length; i++) {
+				final float from = getRangeBandPosition((0 == i) ? mScaleStartValue : mRangeValues[i - 1]);
+				colors[i] = mRangeColors[i];
+				positions[i] = (1 == length) ? 0 : (from + getRangeBandPosition(mRangeValues[i])) / 2 * sweep;
+			}
+			if (1 == length) {
+				colors[1] = mRangeColors[0];
+				positions[1] = sweep;
+			}
+		}
+
+		final SweepGradient gradient = new SweepGradient(CENTER, CENTER, colors, positions);
+		final Matrix matrix = new Matrix();
+		matrix.setRotate(startAngle, CENTER, CENTER);
+		gradient.setLocalMatrix(matrix);
+
+		final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+		paint.setStyle(Paint.Style.STROKE);
+		paint.setStrokeWidth(mRangeBandWidth);
+		paint.setShader(gradient);
+		return paint;
+	}
+
+	private float getRangeBandPosition(final float value) {
+		return Math.max(0.0f, Math.min(1.0f, mScale.toFraction(value)));
 	}
 
 	public Paint getDefaultTextValuePaint() {
@@ -506,7 +674,7 @@ public class GaugeView extends View {
 		paint.setTextSize(mTextValueSize);
 		paint.setTextAlign(Align.CENTER);
 		paint.setTypeface(Typeface.SANS_SERIF);
-		paint.setShadowLayer(0.01f, 0.002f, 0.002f, mTextShadowColor);
+		paint.setShadowLayer(TEXT_SHADOW_RADIUS, TEXT_SHADOW_OFFSET, TEXT_SHADOW_OFFSET, mTextShadowColor);
 		return paint;
 	}
 
@@ -517,7 +685,7 @@ public class GaugeView extends View {
 		paint.setStrokeWidth(0.005f);
 		paint.setTextSize(mTextUnitSize);
 		paint.setTextAlign(Align.CENTER);
-		paint.setShadowLayer(0.01f, 0.002f, 0.002f, mTextShadowColor);
+		paint.setShadowLayer(TEXT_SHADOW_RADIUS, TEXT_SHADOW_OFFSET, TEXT_SHADOW_OFFSET, mTextShadowColor);
 		return paint;
 	}
 
@@ -527,19 +695,38 @@ public class GaugeView extends View {
 		final Parcelable superState = bundle.getParcelable("superState");
 		super.onRestoreInstanceState(superState);
 
-		mNeedleInitialized = bundle.getBoolean("needleInitialized");
-		mNeedleVelocity = bundle.getFloat("needleVelocity");
-		mNeedleAcceleration = bundle.getFloat("needleAcceleration");
-		mNeedleLastMoved = bundle.getLong("needleLastMoved");
-		mCurrentValue = bundle.getFloat("currentValue");
-		mTargetValue = bundle.getFloat("targetValue");
+		final boolean[] initialized = bundle.getBooleanArray("needleInitialized");
+		final float[] velocity = bundle.getFloatArray("needleVelocity");
+		final float[] acceleration = bundle.getFloatArray("needleAcceleration");
+		final long[] lastMoved = bundle.getLongArray("needleLastMoved");
+		final float[] currentValue = bundle.getFloatArray("currentValue");
+		final float[] targetValue = bundle.getFloatArray("targetValue");
+		if (null == initialized) {
+			return;
+		}
+
+		// Needles added after the state was saved keep their current values
+		final int count = Math.min(initialized.length, mNeedles.size());
+		for (int i = 0; i < count; i++) {
+			final GaugeNeedle needle = mNeedles.get(i);
+			needle.mInitialized = initialized[i];
+			needle.mVelocity = velocity[i];
+			needle.mAcceleration = acceleration[i];
+			needle.mLastMoved = lastMoved[i];
+			needle.mCurrentValue = currentValue[i];
+			needle.mTargetValue = targetValue[i];
+		}
 	}
 
 	private void initScale() {
 		mScaleRotation = (mScaleStartAngle + 180) % 360;
-		mDivisionValue = (mScaleEndValue - mScaleStartValue) / mDivisions;
-		mSubdivisionValue = mDivisionValue / mSubdivisions;
-        mSubdivisionAngle = (mScaleEndAngle - mScaleStartAngle) / (mDivisions * mSubdivisions);
+		mScale.prepare(mScaleStartValue, mScaleEndValue);
+		mDivisionValues = mScale.getDivisionValues(mDivisions);
+
+		// The band colors are placed with the scale mapping
+		if (mShowRanges && RANGE_BANDS_NONE != mRangeBands) {
+			mRangeBandPaint = getDefaultRangeBandPaint();
+		}
 	}
 
 	@Override
@@ -548,12 +735,29 @@ public class GaugeView extends View {
 
 		final Bundle state = new Bundle();
 		state.putParcelable("superState", superState);
-		state.putBoolean("needleInitialized", mNeedleInitialized);
-		state.putFloat("needleVelocity", mNeedleVelocity);
-		state.putFloat("needleAcceleration", mNeedleAcceleration);
-		state.putLong("needleLastMoved", mNeedleLastMoved);
-		state.putFloat("currentValue", mCurrentValue);
-		state.putFloat("targetValue", mTargetValue);
+
+		final int count = mNeedles.size();
+		final boolean[] initialized = new boolean[count];
+		final float[] velocity = new float[count];
+		final float[] acceleration = new float[count];
+		final long[] lastMoved = new long[count];
+		final float[] currentValue = new float[count];
+		final float[] targetValue = new float[count];
+		for (int i = 0; i < count; i++) {
+			final GaugeNeedle needle = mNeedles.get(i);
+			initialized[i] = needle.mInitialized;
+			velocity[i] = needle.mVelocity;
+			acceleration[i] = needle.mAcceleration;
+			lastMoved[i] = needle.mLastMoved;
+			currentValue[i] = needle.mCurrentValue;
+			targetValue[i] = needle.mTargetValue;
+		}
+		state.putBooleanArray("needleInitialized", initialized);
+		state.putFloatArray("needleVelocity", velocity);
+		state.putFloatArray("needleAcceleration", acceleration);
+		state.putLongArray("needleLastMoved", lastMoved);
+		state.putFloatArray("currentValue", currentValue);
+		state.putFloatArray("targetValue", targetValue);
 		return state;
 	}
 
@@ -594,28 +798,64 @@ public class GaugeView extends View {
 	}
 
 	private void drawGauge() {
-		if (null != mBackground) {
-			// Let go of the old background
-			mBackground.recycle();
+		final long start = (null != mRenderTimeListener) ? System.nanoTime() : 0;
+		drawGaugeBackground();
+		if (null != mRenderTimeListener) {
+			mRenderTimeListener.onBackgroundRendered(this, System.nanoTime() - start);
 		}
+	}
+
+	private void drawGaugeBackground() {
+		releaseBackground();
+
+		if (null != mBackgroundPool) {
+			mBackground = mBackgroundPool.get(getWidth(), getHeight());
+			if (null != mBackground) {
+				mBackgroundPooled = true;
+				return;
+			}
+		}
+
 		// Create a new background according to the new width and height
 		mBackground = Bitmap.createBitmap(getWidth(), getHeight(), Bitmap.Config.ARGB_8888);
+		if (null != mBackgroundPool) {
+			mBackgroundPool.put(getWidth(), getHeight(), mBackground);
+			mBackgroundPooled = true;
+		}
 		final Canvas canvas = new Canvas(mBackground);
 		final float scale = Math.min(getWidth(), getHeight());
 		canvas.scale(scale, scale);
 		canvas.translate((scale == getHeight()) ? ((getWidth()-scale) /2)/scale : 0 
 				,(scale == getWidth()) ? ((getHeight()-scale) /2 )/scale: 0);
 
+		if (mShowOuterRim && null == mOuterRimPaint) {
+			// Released under memory pressure
+			mOuterRimPaint = getDefaultOuterRimPaint();
+		}
 		drawRim(canvas);
 		drawFace(canvas);
 
 		if (mShowRanges) {
+			if (null != mRangeBandPaint) {
+				drawRangeBands(canvas);
+			}
 			drawScale(canvas);
 		}
 	}
 
+	private void drawRangeBands(final Canvas canvas) {
+		// All the bands are a single arc, the gradient stops give each range its color
+		canvas.drawArc(mRangeBandRect, mScaleRotation - 90, mScaleEndAngle - mScaleStartAngle, false, mRangeBandPaint);
+	}
+
 	@Override
 	protected void onDraw(final Canvas canvas) {
+		final long start = (null != mRenderTimeListener) ? System.nanoTime() : 0;
+		if (null == mBackground && 0 < getWidth() && 0 < getHeight()) {
+			// Released while hidden or under memory pressure, rebuild it at full size
+			drawGauge();
+			mTrimMemoryLevel = 0;
+		}
 		drawBackground(canvas);
 
 		final float scale = Math.min(getWidth(), getHeight());
@@ -632,12 +872,145 @@ public class GaugeView extends View {
 		}
 
 		computeCurrentValue();
+
+		if (null != mRenderTimeListener) {
+			mRenderTimeListener.onFrameRendered(this, System.nanoTime() - start);
+		}
 	}
 
 	private void drawBackground(final Canvas canvas) {
         if (null != mBackground) {
+			if (mBackground.getWidth() == getWidth() && mBackground.getHeight() == getHeight()) {
 				canvas.drawBitmap(mBackground, 0, 0, mBackgroundPaint);
+			} else {
+				// Downsampled under memory pressure
+				if (null == mBackgroundRect) {
+					mBackgroundRect = new Rect();
+				}
+				mBackgroundRect.set(0, 0, getWidth(), getHeight());
+				canvas.drawBitmap(mBackground, null, mBackgroundRect, mBackgroundPaint);
 			}
+		}
+	}
+
+	@Override
+	protected void onAttachedToWindow() {
+		super.onAttachedToWindow();
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
+			registerTrimMemoryCallbacks();
+		}
+	}
+
+	@Override
+	protected void onDetachedFromWindow() {
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
+			unregisterTrimMemoryCallbacks();
+		}
+		if (mTrimMemoryLevel >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+			// Rebuilt by onDraw() if the gauge is attached again
+			releaseCaches();
+		}
+		super.onDetachedFromWindow();
+	}
+
+	@Override
+	protected void onVisibilityChanged(final View changedView, final int visibility) {
+		super.onVisibilityChanged(changedView, visibility);
+		if (View.VISIBLE != visibility && mTrimMemoryLevel >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+			releaseCaches();
+		}
+	}
+
+	@Override
+	protected void onWindowVisibilityChanged(final int visibility) {
+		super.onWindowVisibilityChanged(visibility);
+		if (View.VISIBLE != visibility && mTrimMemoryLevel >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+			releaseCaches();
+		} else if (View.VISIBLE == visibility && isBackgroundDownsampled()) {
+			// Back on screen, let onDraw() rebuild it at full size
+			releaseBackground();
+			invalidate();
+		}
+	}
+
+	@TargetApi(14)
+	private void registerTrimMemoryCallbacks() {
+		if (null == mTrimMemoryCallbacks) {
+			mTrimMemoryCallbacks = new TrimMemoryCallbacks();
+			getContext().getApplicationContext().registerComponentCallbacks(mTrimMemoryCallbacks);
+		}
+	}
+
+	@TargetApi(14)
+	private void unregisterTrimMemoryCallbacks() {
+		if (null != mTrimMemoryCallbacks) {
+			getContext().getApplicationContext().unregisterComponentCallbacks(mTrimMemoryCallbacks);
+			mTrimMemoryCallbacks = null;
+		}
+	}
+
+	private void onTrimMemory(final int level) {
+		mTrimMemoryLevel = Math.max(mTrimMemoryLevel, level);
+		if (null != mBackgroundPool) {
+			// Releasing a pooled background frees nothing while the pool still holds it
+			mBackgroundPool.trim(level);
+		}
+		if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN || !isShown()) {
+			// Nothing to show for now, rebuild everything on the next draw
+			releaseCaches();
+		} else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+			downsampleBackground();
+		}
+	}
+
+	private void downsampleBackground() {
+		// A pooled background is shared, downsampling one copy of it wouldn't free anything
+		if (null == mBackground || mBackgroundPooled || isBackgroundDownsampled()) {
+			return;
+		}
+		final Bitmap background = Bitmap.createScaledBitmap(mBackground, Math.max(1, getWidth() / 2),
+				Math.max(1, getHeight() / 2), true);
+		mBackground.recycle();
+		mBackground = background;
+		invalidate();
+	}
+
+	private boolean isBackgroundDownsampled() {
+		return null != mBackground && mBackground.getWidth() < getWidth();
+	}
+
+	private void releaseBackground() {
+		if (null != mBackground && !mBackgroundPooled) {
+			// Let go of the old background, unless other gauges are still drawing it
+			mBackground.recycle();
+		}
+		mBackground = null;
+		mBackgroundPooled = false;
+	}
+
+	private void releaseCaches() {
+		releaseBackground();
+		releaseTextAtlases();
+		mScaleLabelPaths.clear();
+		// The rim shader holds on to the decoded metal texture
+		mOuterRimPaint = null;
+	}
+
+	@TargetApi(14)
+	private class TrimMemoryCallbacks implements ComponentCallbacks2 {
+
+		@Override
+		public void onTrimMemory(final int level) {
+			GaugeView.this.onTrimMemory(level);
+		}
+
+		@Override
+		public void onLowMemory() {
+			GaugeView.this.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+		}
+
+		@Override
+		public void onConfigurationChanged(final Configuration newConfig) {}
 	}
 
 	private void drawRim(final Canvas canvas) {
@@ -667,7 +1040,11 @@ public class GaugeView extends View {
 	}
 
 	private void drawText(final Canvas canvas) {
-		final String textValue = !TextUtils.isEmpty(mTextValue) ? mTextValue : valueString(mCurrentValue);
+		if (mTextAtlas && drawTextFromAtlas(canvas)) {
+			return;
+		}
+
+		final String textValue = !TextUtils.isEmpty(mTextValue) ? mTextValue : valueString(mNeedles.get(0).mCurrentValue);
 		final float textValueWidth = mTextValuePaint.measureText(textValue);
 		final float textUnitWidth = !TextUtils.isEmpty(mTextUnit) ? mTextUnitPaint.measureText(mTextUnit) : 0;
 
@@ -687,45 +1064,69 @@ public class GaugeView extends View {
 		// We start the scale somewhere South-West so we need to first rotate the canvas.
 		canvas.rotate(mScaleRotation, 0.5f, 0.5f);
 
-		final int totalTicks = mDivisions * mSubdivisions + 1;
-		for (int i = 0; i < totalTicks; i++) {
-			final float y1 = mScaleRect.top;
-			final float y2 = y1 + 0.015f; // height of division
-			final float y3 = y1 + 0.045f; // height of subdivision
-
-			final float value = getValueForTick(i);
-            //final Paint paint = getRangePaint(mScaleStartValue + value);
-			final Paint paint = getRangePaint(value);
-
-            float mod = value % mDivisionValue;
-            /*if ((Math.abs(mod - 0) < 0.001) || (Math.abs(mod - mDivisionValue) < 0.001)) {
-				// Draw a division tick
-				canvas.drawLine(0.5f, y1, 0.5f, y3, paint);
-				// Draw the text 0.15 away from the division tick
-				drawTextOnCanvasWithMagnifier(canvas, valueString(value), 0.5f, y3 + 0.045f, paint);
-			} else {
-				// Draw a subdivision tick
-				canvas.drawLine(0.5f, y1, 0.5f, y2, paint);
-			}*/
-			if ((Math.abs(mod - 0) < 0.001) || (Math.abs(mod - mDivisionValue) < 0.001)) {
-				// Draw a division tick
-				canvas.drawLine(0.5f, y1, 0.5f, y3, paint);
-				// Draw the text 0.15 away from the division tick
-				drawTextOnCanvasWithMagnifier(canvas, valueString(value), 0.5f, y3 + 0.045f, paint);
-			} else {
-				// Draw a subdivision tick
-				canvas.drawLine(0.5f, y1, 0.5f, y2, paint);
+		final float y1 = mScaleRect.top;
+		final float y2 = y1 + 0.015f; // height of division
+		final float y3 = y1 + 0.045f; // height of subdivision
+		final float sweep = mScaleEndAngle - mScaleStartAngle;
+
+		// The scale decides which values the divisions show and the ticks are drawn where those values are,
+		// with the subdivisions evenly spaced in between
+		float angle = 0.0f;
+		float previousFraction = 0.0f;
+		for (int division = 0; division <= mDivisions; division++) {
+			final float value = mDivisionValues[division];
+			final float fraction = mScale.toFraction(value);
+
+			if (0 < division) {
+				for (int i = 1; i < mSubdivisions; i++) {
+					final float subdivisionFraction = previousFraction + (fraction - previousFraction) * i / mSubdivisions;
+					canvas.rotate(subdivisionFraction * sweep - angle, 0.5f, 0.5f);
+					angle = subdivisionFraction * sweep;
+					// Draw a subdivision tick
+					canvas.drawLine(0.5f, y1, 0.5f, y2, getRangePaint(mScale.toValue(subdivisionFraction)));
+				}
 			}
 
+			canvas.rotate(fraction * sweep - angle, 0.5f, 0.5f);
+			angle = fraction * sweep;
+			final Paint paint = getRangePaint(value);
+			// Draw a division tick
+			canvas.drawLine(0.5f, y1, 0.5f, y3, paint);
+			// Draw the text 0.15 away from the division tick
+			canvas.drawPath(getScaleLabelPath(mScale.getDivisionLabel(value), 0.5f, y3 + 0.045f), paint);
 
-			canvas.rotate(mSubdivisionAngle, 0.5f, 0.5f);
+			previousFraction = fraction;
 		}
 		canvas.restore();
 	}
 
+	/**
+	 * The label outlines are extracted once and kept, so redrawing the scale draws cached paths and leaves the range
+	 * paints untouched. They are all drawn at the same place on the rotated canvas, so the text is enough as key.
+	 */
+	private Path getScaleLabelPath(final String text, final float x, final float y) {
+		Path path = mScaleLabelPaths.get(text);
+		if (null == path) {
+			// Text doesn't render properly at the unit square sizes (see drawTextOnCanvasWithMagnifier()),
+			// so get the outline at a large size and scale it down
+			path = new Path();
+			mScaleLabelPaint.getTextPath(text, 0, text.length(), x * SCALE_LABEL_MAGNIFIER, y * SCALE_LABEL_MAGNIFIER, path);
+			final Matrix matrix = new Matrix();
+			matrix.setScale(1.0f / SCALE_LABEL_MAGNIFIER, 1.0f / SCALE_LABEL_MAGNIFIER);
+			path.transform(matrix);
+			mScaleLabelPaths.put(text, path);
+		}
+		return path;
+	}
+
 	// Workaround to fix missing text on Lollipop and above,
 	// and probably some rendering issues with Jelly Bean and above
 	// Modified from http://stackoverflow.com/a/14989037/746068
+	/**
+	 * @deprecated The scale labels are drawn from cached paths now. This mutates the paint, so it is neither fast
+	 *             nor safe to call with a shared paint from another thread.
+	 */
+	@Deprecated
 	public static void drawTextOnCanvasWithMagnifier(Canvas canvas, String text, float x, float y, Paint paint) {
 		if (android.os.Build.VERSION.SDK_INT <= 15) {
 			//draw normally
@@ -751,12 +1152,106 @@ public class GaugeView extends View {
 		}
 	}
 
-	private String valueString(final float value) {
-		return String.format("%d", (int) value);
+	/**
+	 * Composes the text from pre-rendered glyphs.
+	 *
+	 * @return false if the text has characters the atlas doesn't have, so it must be drawn as text.
+	 */
+	private boolean drawTextFromAtlas(final Canvas canvas) {
+		final float scale = Math.min(getWidth(), getHeight());
+		if (null == mTextValueAtlas || scale != mTextValueAtlas.getScale()) {
+			buildTextAtlases(scale);
+		}
+
+		final int start;
+		final int end = mTextBuffer.length;
+		if (!TextUtils.isEmpty(mTextValue)) {
+			if (mTextValue.length() > end) {
+				return false;
+			}
+			start = end - mTextValue.length();
+			mTextValue.getChars(0, mTextValue.length(), mTextBuffer, start);
+		} else {
+			start = valueChars(mNeedles.get(0).mCurrentValue, mTextBuffer);
+		}
+
+		float textValueWidth = 0;
+		for (int i = start; i < end; i++) {
+			mTextGlyphs[i] = mTextValueAtlas.indexOf(mTextBuffer[i]);
+			if (-1 == mTextGlyphs[i]) {
+				return false;
+			}
+			textValueWidth += mTextValueAtlas.getAdvance(mTextGlyphs[i]);
+		}
+		final float textUnitWidth = (null != mTextUnitAtlas) ? mTextUnitAtlas.getAdvance(0) : 0;
+
+		// Same layout as drawText(), with the centered texts turned into left edges
+		float x = CENTER - textUnitWidth / 2 - textValueWidth / 2;
+		for (int i = start; i < end; i++) {
+			x += mTextValueAtlas.drawGlyph(canvas, mTextGlyphs[i], x, CENTER + 0.1f, mBackgroundPaint);
+		}
+
+		if (null != mTextUnitAtlas) {
+			mTextUnitAtlas.drawGlyph(canvas, 0, CENTER + textValueWidth / 2 + 0.03f - textUnitWidth / 2, CENTER,
+					mBackgroundPaint);
+		}
+		return true;
+	}
+
+	private void buildTextAtlases(final float scale) {
+		releaseTextAtlases();
+		mTextValueAtlas = new GaugeGlyphAtlas(mTextValuePaint, TEXT_SHADOW_RADIUS, TEXT_SHADOW_OFFSET,
+				TEXT_SHADOW_OFFSET, mTextShadowColor, TEXT_ATLAS_GLYPHS, scale);
+		if (!TextUtils.isEmpty(mTextUnit)) {
+			mTextUnitAtlas = new GaugeGlyphAtlas(mTextUnitPaint, TEXT_SHADOW_RADIUS, TEXT_SHADOW_OFFSET,
+					TEXT_SHADOW_OFFSET, mTextShadowColor, new String[] { mTextUnit }, scale);
+		}
 	}
 
-	private float getValueForTick(final int tick) {
-		return mScaleStartValue + tick * (mDivisionValue / mSubdivisions);
+	private void releaseTextAtlases() {
+		if (null != mTextValueAtlas) {
+			mTextValueAtlas.recycle();
+			mTextValueAtlas = null;
+		}
+		if (null != mTextUnitAtlas) {
+			mTextUnitAtlas.recycle();
+			mTextUnitAtlas = null;
+		}
+	}
+
+	/**
+	 * Writes the same digits as {@link #valueString(float)} at the end of the buffer, without allocating.
+	 *
+	 * @return the index of the first character.
+	 */
+	private static int valueChars(final float value, final char[] buffer) {
+		final int number = (int) value;
+		long remaining = Math.abs((long) number);
+		int position = buffer.length;
+		do {
+			buffer[--position] = (char) ('0' + remaining % 10);
+			remaining /= 10;
+		} while (remaining > 0);
+		if (number < 0) {
+			buffer[--position] = '-';
+		}
+		return position;
+	}
+
+	/**
+	 * Draws the live value from a bitmap of pre-rendered glyphs instead of shaping and blurring the text on every
+	 * frame. Only for the digits, sign and decimal point, any other text is still drawn as text.
+	 */
+	public void setTextAtlas(final boolean textAtlas) {
+		mTextAtlas = textAtlas;
+		if (!textAtlas) {
+			releaseTextAtlases();
+		}
+		invalidate();
+	}
+
+	private String valueString(final float value) {
+		return String.format("%d", (int) value);
 	}
 
 	private Paint getRangePaint(final float value) {
@@ -769,93 +1264,210 @@ public class GaugeView extends View {
 	}
 
 	private void drawNeedle(final Canvas canvas) {
-		if (mNeedleInitialized) {
-			final float angle = getAngleForValue(mCurrentValue);
-			// Logger.log.info(String.format("value=%f -> angle=%f", mCurrentValue, angle));
-
-			canvas.save(Canvas.MATRIX_SAVE_FLAG);
-			canvas.rotate(angle, 0.5f, 0.5f);
-
-			setNeedleShadowPosition(angle);
-			canvas.drawPath(mNeedleLeftPath, mNeedleLeftPaint);
-			canvas.drawPath(mNeedleRightPath, mNeedleRightPaint);
-
-			canvas.restore();
+		boolean drawn = false;
+		final int count = mNeedles.size();
+		for (int i = 0; i < count; i++) {
+			final GaugeNeedle needle = mNeedles.get(i);
+			if (needle.mInitialized) {
+				final float angle = getAngleForValue(needle.mCurrentValue);
+				// Logger.log.info(String.format("value=%f -> angle=%f", needle.mCurrentValue, angle));
+
+				canvas.save(Canvas.MATRIX_SAVE_FLAG);
+				canvas.rotate(angle, 0.5f, 0.5f);
+
+				setNeedleShadowPosition(needle, angle);
+				canvas.drawPath(mNeedleLeftPath, needle.mLeftPaint);
+				canvas.drawPath(mNeedleRightPath, needle.mRightPaint);
+
+				canvas.restore();
+				drawn = true;
+			}
+		}
 
-			// Draw the needle screw and its border
+		if (drawn) {
+			// Draw the needle screw and its border on top of all the needles
 			canvas.drawCircle(0.5f, 0.5f, 0.04f, mNeedleScrewPaint);
 			canvas.drawCircle(0.5f, 0.5f, 0.04f, mNeedleScrewBorderPaint);
 		}
 	}
 
-	private void setNeedleShadowPosition(final float angle) {
+	private void setNeedleShadowPosition(final GaugeNeedle needle, final float angle) {
 		if (angle > 180 && angle < 360) {
 			// Move shadow from right to left
-			mNeedleRightPaint.setShadowLayer(0, 0, 0, Color.BLACK);
-			mNeedleLeftPaint.setShadowLayer(0.01f, -0.005f, 0.005f, Color.argb(127, 0, 0, 0));
+			needle.mRightPaint.setShadowLayer(0, 0, 0, Color.BLACK);
+			needle.mLeftPaint.setShadowLayer(0.01f, -0.005f, 0.005f, Color.argb(127, 0, 0, 0));
         } else {
 			// Move shadow from left to right
-			mNeedleLeftPaint.setShadowLayer(0, 0, 0, Color.BLACK);
-			mNeedleRightPaint.setShadowLayer(0.01f, 0.005f, -0.005f, Color.argb(127, 0, 0, 0));
+			needle.mLeftPaint.setShadowLayer(0, 0, 0, Color.BLACK);
+			needle.mRightPaint.setShadowLayer(0.01f, 0.005f, -0.005f, Color.argb(127, 0, 0, 0));
 		}
 	}
 
 	private float getAngleForValue(final float value) {
-        return (mScaleRotation + ((value - mScaleStartValue) / mSubdivisionValue) * mSubdivisionAngle) % 360;
+        return (mScaleRotation + mScale.toFraction(value) * (mScaleEndAngle - mScaleStartAngle)) % 360;
 	}
 
 	private void computeCurrentValue() {
-		// Logger.log.warn(String.format("velocity=%f, acceleration=%f", mNeedleVelocity,
-		// mNeedleAcceleration));
+		// All the needles share one redraw: right away if any of them needs it, otherwise after the shortest delay
+		long delay = -1;
+		final int count = mNeedles.size();
+		for (int i = 0; i < count; i++) {
+			final long needleDelay = computeCurrentValue(mNeedles.get(i));
+			if (-1 != needleDelay && (-1 == delay || needleDelay < delay)) {
+				delay = needleDelay;
+			}
+		}
 
-        if (!(Math.abs(mCurrentValue - mTargetValue) > 0.01f)) {
-            return;
-        }
+		if (0 == delay) {
+			invalidate();
+		} else if (0 < delay) {
+			postInvalidateDelayed(delay);
+		}
+	}
 
-		if (-1 != mNeedleLastMoved) {
-			final float time = (System.currentTimeMillis() - mNeedleLastMoved) / 1000.0f;
-			final float direction = Math.signum(mNeedleVelocity);
-			if (Math.abs(mNeedleVelocity) < 90.0f) {
-				mNeedleAcceleration = 5.0f * (mTargetValue - mCurrentValue);
-            } else {
-				mNeedleAcceleration = 0.0f;
-			}
+	/**
+	 * @return how long to wait before the next redraw in milliseconds, or -1 if the needle is at rest.
+	 */
+	private long computeCurrentValue(final GaugeNeedle needle) {
+		if (!needle.move(System.currentTimeMillis())) {
+			return -1;
+		}
+		return mAdaptiveFrameRate ? needle.getAdaptiveFrameDelay(mScale, getNeedleTipTravel(), mAdaptiveMinDisplacement) : 0;
+	}
 
-			mNeedleAcceleration = 5.0f * (mTargetValue - mCurrentValue);
-			mCurrentValue += mNeedleVelocity * time;
-			mNeedleVelocity += mNeedleAcceleration * time;
-
-			if ((mTargetValue - mCurrentValue) * direction < 0.01f * direction) {
-				mCurrentValue = mTargetValue;
-				mNeedleVelocity = 0.0f;
-				mNeedleAcceleration = 0.0f;
-				mNeedleLastMoved = -1L;
-            } else {
-				mNeedleLastMoved = System.currentTimeMillis();
-			}
+	/**
+	 * @return how far the needle tip travels from the start to the end of the scale, in pixels.
+	 */
+	private float getNeedleTipTravel() {
+		final float radius = mNeedleHeight * Math.min(getWidth(), getHeight());
+		return (float) Math.toRadians(Math.abs(mScaleEndAngle - mScaleStartAngle)) * radius;
+	}
 
-			invalidate();
+	/**
+	 * Changes how values are spread along the scale. The background is redrawn with the new ticks.
+	 */
+	public void setScale(final GaugeScale scale) {
+		mScale = scale;
+		initScale();
+		mScaleLabelPaths.clear();
+		if (null != mBackgroundPool) {
+			// The pooled backgrounds show the old ticks
+			mBackgroundPool.clear();
+		}
+		if (0 < getWidth() && 0 < getHeight()) {
+			drawGauge();
+		}
+		invalidate();
+	}
 
-        } else {
-			mNeedleLastMoved = System.currentTimeMillis();
-			computeCurrentValue();
+	public void setAdaptiveFrameRate(final boolean adaptive) {
+		mAdaptiveFrameRate = adaptive;
+	}
+
+	public boolean isAdaptiveFrameRate() {
+		return mAdaptiveFrameRate;
+	}
+
+	boolean isAnimating() {
+		final int count = mNeedles.size();
+		for (int i = 0; i < count; i++) {
+			if (mNeedles.get(i).isMoving()) {
+				return true;
+			}
 		}
+		return false;
+	}
+
+	public void setValueRecorder(final GaugeValueRecorder recorder) {
+		mValueRecorder = recorder;
+	}
+
+	public void setOnRenderTimeListener(final OnRenderTimeListener listener) {
+		mRenderTimeListener = listener;
+	}
+
+	/**
+	 * Adds a needle drawn in the given color over the same scale.
+	 *
+	 * @return the index of the new needle, to be used with {@link #setTargetValue(int, float)}.
+	 */
+	public int addNeedle(final int color) {
+		final GaugeNeedle needle = new GaugeNeedle();
+		needle.mLeftPaint = getNeedleLeftPaint(color);
+		needle.mRightPaint = getNeedleRightPaint(color);
+		needle.mCurrentValue = mScaleStartValue;
+		needle.mTargetValue = mScaleStartValue;
+		mNeedles.add(needle);
+		return mNeedles.size() - 1;
+	}
+
+	public int getNeedleCount() {
+		return mNeedles.size();
 	}
 
 	public void setTargetValue(final float value) {
+		setTargetValue(0, value);
+	}
+
+	public void setTargetValue(final int index, final float value) {
+		// The recording format only carries the first needle
+		if (null != mValueRecorder && 0 == index) {
+			mValueRecorder.record(value);
+		}
+		mNeedles.get(index).setTargetValue(clampValue(value));
+		invalidate();
+	}
+
+	public void setValue(final float value) {
+		setValue(0, value);
+	}
+
+	/**
+	 * Moves the needle straight to the value, without animating it.
+	 */
+	public void setValue(final int index, final float value) {
+		final GaugeNeedle needle = mNeedles.get(index);
+		needle.mTargetValue = clampValue(value);
+		needle.stop();
+		needle.mInitialized = true;
+		invalidate();
+	}
+
+	/**
+	 * Puts all the needles back to their initial state, without inflating the view again. Use it when a recycled
+	 * gauge is bound to another item, followed by {@link #setValue(float)} to show the item's value right away.
+	 */
+	public void reset() {
+		final int count = mNeedles.size();
+		for (int i = 0; i < count; i++) {
+			final GaugeNeedle needle = mNeedles.get(i);
+			needle.mTargetValue = mScaleStartValue;
+			needle.stop();
+			needle.mInitialized = false;
+		}
+		invalidate();
+	}
+
+	/**
+	 * Shares the background with the other gauges using the same pool. All of them must have the same configuration.
+	 */
+	public void setBackgroundPool(final GaugeBackgroundPool pool) {
+		mBackgroundPool = pool;
+		if (0 < getWidth() && 0 < getHeight()) {
+			drawGauge();
+			invalidate();
+		}
+	}
+
+	private float clampValue(final float value) {
 		if (mShowScale || mShowRanges) {
 			if (value < mScaleStartValue) {
-				mTargetValue = mScaleStartValue;
+				return mScaleStartValue;
             } else if (value > mScaleEndValue) {
-				mTargetValue = mScaleEndValue;
-            } else {
-				mTargetValue = value;
+				return mScaleEndValue;
 			}
-        } else {
-			mTargetValue = value;
 		}
-		mNeedleInitialized = true;
-		invalidate();
+		return value;
 	}
 
 }
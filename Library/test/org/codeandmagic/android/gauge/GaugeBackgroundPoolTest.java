@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Evelina Vrabie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.codeandmagic.android.gauge;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import android.content.ComponentCallbacks2;
+
+public class GaugeBackgroundPoolTest {
+
+	@Test
+	public void leastRecentlyUsedSizesAreDropped() {
+		final GaugeBackgroundPool pool = new GaugeBackgroundPool(2);
+		pool.put(100, 100, null);
+		pool.put(200, 200, null);
+		pool.put(300, 300, null);
+		assertEquals(2, pool.size());
+	}
+
+	@Test
+	public void moderatePressureKeepsTheBackgrounds() {
+		final GaugeBackgroundPool pool = fill();
+		pool.trim(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+		assertEquals(GaugeBackgroundPool.MAX_SIZE, pool.size());
+	}
+
+	@Test
+	public void lowMemoryEmptiesThePool() {
+		final GaugeBackgroundPool pool = fill();
+		pool.trim(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+		assertEquals(0, pool.size());
+
+		final GaugeBackgroundPool hidden = fill();
+		hidden.trim(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+		assertEquals(0, hidden.size());
+	}
+
+	private static GaugeBackgroundPool fill() {
+		final GaugeBackgroundPool pool = new GaugeBackgroundPool();
+		for (int i = 1; i <= GaugeBackgroundPool.MAX_SIZE; i++) {
+			pool.put(100 * i, 100 * i, null);
+		}
+		return pool;
+	}
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Evelina Vrabie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.codeandmagic.android.gauge;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Drives the needle physics frame by frame the way {@link GaugeView} does, on a 300px gauge with the default needle
+ * and a 270 degree scale from 0 to 100.
+ */
+public class GaugeNeedleTest {
+
+	private static final float TIP_TRAVEL = (float) Math.toRadians(270) * GaugeView.NEEDLE_HEIGHT * 300;
+
+	private final GaugeScale mScale = GaugeScale.linear();
+
+	public GaugeNeedleTest() {
+		mScale.prepare(0.0f, 100.0f);
+	}
+
+	@Test
+	public void fixedFrameRateDrawsEveryFrame() {
+		for (final float[] move : new float[][] { { 0, 100 }, { 0, 10 }, { 0, 1 }, { 50, 49.5f }, { 100, 0 } }) {
+			final List<Long> delays = run(move[0], move[1], false);
+			for (final long delay : delays) {
+				assertEquals(0L, delay);
+			}
+		}
+	}
+
+	@Test
+	public void smallMoveSkipsFrames() {
+		final int fixedFrames = run(50, 49.5f, false).size();
+		final List<Long> delays = run(50, 49.5f, true);
+		assertEquals("The first frame must not be held back", 0L, (long) delays.get(0));
+		assertTrue(delays.size() + " frames instead of " + fixedFrames, delays.size() < fixedFrames / 2);
+		assertTrue(countDelayed(delays) > 0);
+	}
+
+	@Test
+	public void startOfMoveSkipsFrames() {
+		final int fixedFrames = run(0, 10, false).size();
+		final List<Long> delays = run(0, 10, true);
+		assertEquals(0L, (long) delays.get(0));
+		assertTrue(delays.get(1) > 0);
+		assertTrue(delays.size() < fixedFrames);
+		// Once the tip moves visibly, every frame is drawn
+		assertEquals(0L, (long) delays.get(delays.size() - 2));
+	}
+
+	@Test
+	public void largeMoveIsNotSlowedDown() {
+		assertEquals(0, countDelayed(run(0, 100, true)));
+		assertEquals(0, countDelayed(run(100, 0, true)));
+	}
+
+	@Test
+	public void adaptiveMoveEndsOnTarget() {
+		for (final float[] move : new float[][] { { 0, 100 }, { 0, 10 }, { 0, 1 }, { 50, 49.5f }, { 100, 0 } }) {
+			final GaugeNeedle needle = new GaugeNeedle();
+			needle.mCurrentValue = move[0];
+			needle.setTargetValue(move[1]);
+			run(needle, true);
+			assertFalse(needle.isMoving());
+			assertEquals(move[1], needle.mCurrentValue, 0.0f);
+		}
+	}
+
+	private List<Long> run(final float from, final float to, final boolean adaptive) {
+		final GaugeNeedle needle = new GaugeNeedle();
+		needle.mCurrentValue = from;
+		needle.setTargetValue(to);
+		return run(needle, adaptive);
+	}
+
+	/**
+	 * @return the delay requested after each frame that moved the needle.
+	 */
+	private List<Long> run(final GaugeNeedle needle, final boolean adaptive) {
+		final List<Long> delays = new ArrayList<Long>();
+		long now = 1000L;
+		while (needle.move(now)) {
+			final long delay = adaptive ? needle.getAdaptiveFrameDelay(mScale, TIP_TRAVEL,
+					GaugeView.ADAPTIVE_MIN_DISPLACEMENT) : 0;
+			delays.add(delay);
+			now += (0 == delay) ? GaugeView.FRAME_DELAY : delay;
+			assertTrue("The needle must settle", delays.size() < 1000);
+		}
+		return delays;
+	}
+
+	private static int countDelayed(final List<Long> delays) {
+		int count = 0;
+		for (final long delay : delays) {
+			if (0 < delay) {
+				count++;
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Evelina Vrabie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.codeandmagic.android.gauge;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Test;
+
+public class GaugeRenderTimingsTest {
+
+	@Test
+	public void listenerTimingsAreFiledUnderTheCase() {
+		final GaugeRenderTimings timings = new GaugeRenderTimings();
+		timings.onFrameRendered(null, 1000L);
+		timings.setCase("300x300");
+		timings.onBackgroundRendered(null, 5000L);
+		timings.onFrameRendered(null, 2000L);
+		timings.onFrameRendered(null, 4000L);
+
+		assertEquals(1, timings.getCount(GaugeRenderTimings.DEFAULT_CASE, GaugeRenderTimings.PHASE_FRAME));
+		assertEquals(1, timings.getCount("300x300", GaugeRenderTimings.PHASE_BACKGROUND));
+		assertEquals(2, timings.getCount("300x300", GaugeRenderTimings.PHASE_FRAME));
+		assertEquals(0, timings.getCount("300x300", "missing"));
+		assertEquals(-1, timings.getPercentile("300x300", "missing", 50));
+	}
+
+	@Test
+	public void percentilesUseNearestRank() {
+		final GaugeRenderTimings timings = new GaugeRenderTimings();
+		// Added out of order and more than the initial capacity
+		for (int i = 100; i >= 1; i--) {
+			timings.add(GaugeRenderTimings.PHASE_FRAME, i * 1000L);
+		}
+		assertEquals(50000L, timings.getPercentile(GaugeRenderTimings.DEFAULT_CASE, GaugeRenderTimings.PHASE_FRAME, 50));
+		assertEquals(90000L, timings.getPercentile(GaugeRenderTimings.DEFAULT_CASE, GaugeRenderTimings.PHASE_FRAME, 90));
+		assertEquals(100000L, timings.getPercentile(GaugeRenderTimings.DEFAULT_CASE, GaugeRenderTimings.PHASE_FRAME, 100));
+		assertEquals(1000L, timings.getPercentile(GaugeRenderTimings.DEFAULT_CASE, GaugeRenderTimings.PHASE_FRAME, 0));
+	}
+
+	@Test
+	public void reportListsEveryCase() throws IOException {
+		final GaugeRenderTimings timings = new GaugeRenderTimings();
+		timings.setCase("log \"scale\"");
+		timings.add("toFraction", 3000L);
+		timings.setCase("300x300");
+		timings.add(GaugeRenderTimings.PHASE_FRAME, 2000L);
+
+		final StringWriter writer = new StringWriter();
+		timings.writeReport(writer);
+		final String report = writer.toString();
+		assertTrue(report, report.contains("{\"case\": \"log \\\"scale\\\"\", \"phase\": \"toFraction\", \"count\": 1, "
+				+ "\"medianNanos\": 3000, \"p90Nanos\": 3000, \"maxNanos\": 3000},\n"));
+		assertTrue(report, report.contains("{\"case\": \"300x300\", \"phase\": \"frame\", \"count\": 1, "
+				+ "\"medianNanos\": 2000, \"p90Nanos\": 2000, \"maxNanos\": 2000}\n"));
+	}
+
+	@Test
+	public void mediansOverBudgetAreReported() {
+		final GaugeRenderTimings timings = new GaugeRenderTimings();
+		timings.setCase("small");
+		timings.add(GaugeRenderTimings.PHASE_FRAME, 10000000L);
+		timings.add(GaugeRenderTimings.PHASE_BACKGROUND, 90000000L);
+		timings.setCase("large");
+		timings.add(GaugeRenderTimings.PHASE_FRAME, 20000000L);
+		timings.add(GaugeRenderTimings.PHASE_BACKGROUND, 90000000L);
+
+		final Properties budgets = new Properties();
+		budgets.setProperty(GaugeRenderTimings.PHASE_FRAME, "16000");
+		budgets.setProperty("large/" + GaugeRenderTimings.PHASE_BACKGROUND, "100000");
+
+		final List<String> violations = timings.checkBudgets(budgets);
+		assertEquals(1, violations.size());
+		assertEquals("large/frame: median 20000us over the 16000us budget", violations.get(0));
+	}
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Evelina Vrabie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.codeandmagic.android.gauge;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class GaugeScaleTest {
+
+	private static final float TOLERANCE = 0.0005f;
+
+	@Test
+	public void logarithmicTableMatchesExactMapping() {
+		final GaugeScale scale = prepare(GaugeScale.logarithmic(), 1.0f, 10000.0f);
+		assertEquals(0.25f, scale.toFraction(10.0f), TOLERANCE);
+		assertEquals(0.5f, scale.toFraction(100.0f), TOLERANCE);
+		assertEquals(Math.log10(5.0) / 4, scale.toFraction(5.0f), TOLERANCE);
+		assertMatchesExactMapping(scale, 1.0f, 10000.0f);
+	}
+
+	@Test
+	public void squareRootTableMatchesExactMapping() {
+		final GaugeScale scale = prepare(GaugeScale.squareRoot(), 0.0f, 100.0f);
+		assertEquals(0.1f, scale.toFraction(1.0f), TOLERANCE);
+		assertEquals(0.5f, scale.toFraction(25.0f), TOLERANCE);
+		assertMatchesExactMapping(scale, 0.0f, 100.0f);
+	}
+
+	@Test
+	public void piecewiseTableMatchesExactMapping() {
+		final GaugeScale scale = prepare(GaugeScale.piecewise(new float[] { 10.0f, 50.0f }, new float[] { 0.5f, 0.75f }),
+				0.0f, 1000.0f);
+		assertEquals(0.25f, scale.toFraction(5.0f), TOLERANCE);
+		assertEquals(0.5f, scale.toFraction(10.0f), TOLERANCE);
+		assertEquals(0.875f, scale.toFraction(525.0f), TOLERANCE);
+		assertMatchesExactMapping(scale, 0.0f, 1000.0f);
+	}
+
+	@Test
+	public void valuesOutsideTheScaleAreClamped() {
+		final GaugeScale scale = prepare(GaugeScale.logarithmic(), 1.0f, 10000.0f);
+		assertEquals(0.0f, scale.toFraction(0.5f), 0.0f);
+		assertEquals(0.0f, scale.toFraction(Float.NaN), 0.0f);
+		assertEquals(1.0f, scale.toFraction(20000.0f), 0.0f);
+	}
+
+	@Test
+	public void linearDivisionsAreUnchanged() {
+		final GaugeScale scale = prepare(GaugeScale.linear(), 0.0f, 7.0f);
+		final float[] values = scale.getDivisionValues(3);
+		assertEquals(7.0f / 3, values[1], 0.0001f);
+		assertEquals("2", scale.getDivisionLabel(values[1]));
+	}
+
+	@Test
+	public void logarithmicDivisionsAreRound() {
+		final GaugeScale scale = prepare(GaugeScale.logarithmic(), 1.0f, 10000.0f);
+		assertArrayEquals(new float[] { 1, 2.5f, 6.3f, 16, 40, 100, 250, 630, 1600, 4000, 10000 },
+				scale.getDivisionValues(10), 0.0001f);
+		assertEquals("6.3", scale.getDivisionLabel(6.3f));
+		assertEquals("1600", scale.getDivisionLabel(1600.0f));
+	}
+
+	@Test
+	public void crowdedDivisionsStayApart() {
+		final GaugeScale scale = prepare(GaugeScale.logarithmic(), 1.0f, 2.0f);
+		final float[] values = scale.getDivisionValues(10);
+		for (int i = 1; i < values.length; i++) {
+			assertTrue(values[i] > values[i - 1]);
+		}
+	}
+
+	private static GaugeScale prepare(final GaugeScale scale, final float startValue, final float endValue) {
+		scale.prepare(startValue, endValue);
+		return scale;
+	}
+
+	private static void assertMatchesExactMapping(final GaugeScale scale, final float startValue, final float endValue) {
+		for (int i = 0; i <= 10000; i++) {
+			final float value = startValue + (endValue - startValue) * i / 10000;
+			final double exact = scale.toFraction(value, startValue, endValue);
+			assertEquals("value " + value, exact, scale.toFraction(value), TOLERANCE);
+		}
+		// The stretched start of the scale, where sampling by value used to be too sparse
+		for (int i = 0; i <= 1000; i++) {
+			final float fraction = i / 1000.0f;
+			final float value = scale.toValue(fraction);
+			assertEquals("fraction " + fraction, fraction, scale.toFraction(value), TOLERANCE);
+		}
+	}
+}
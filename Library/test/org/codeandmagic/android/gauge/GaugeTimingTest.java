@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Evelina Vrabie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.codeandmagic.android.gauge;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Times the plain Java work the gauge does per frame and per background, writes the timings to the report given by
+ * the {@code gauge.timingReport} system property and fails when a median goes over its budget in
+ * {@code render-budgets.properties}.
+ */
+public class GaugeTimingTest {
+
+	private static final int WARMUP_SAMPLES = 20;
+	private static final int SAMPLES = 50;
+	private static final int FRAMES = 10000;
+
+	private static GaugeRenderTimings sTimings;
+	private static Properties sBudgets;
+
+	@Rule
+	public TemporaryFolder mFolder = new TemporaryFolder();
+
+	private float mSink;
+
+	@BeforeClass
+	public static void loadBudgets() throws IOException {
+		sTimings = new GaugeRenderTimings();
+		sBudgets = new Properties();
+		final InputStream in = GaugeTimingTest.class.getResourceAsStream("render-budgets.properties");
+		try {
+			sBudgets.load(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	@AfterClass
+	public static void writeReport() throws IOException {
+		final File report = new File(System.getProperty("gauge.timingReport", "target/render-timings.json"));
+		report.getAbsoluteFile().getParentFile().mkdirs();
+		final Writer writer = new FileWriter(report);
+		try {
+			sTimings.writeReport(writer);
+		} finally {
+			writer.close();
+		}
+	}
+
+	@Test
+	public void linearNeedleMapping() {
+		timeNeedleMapping("scale.linear", GaugeScale.linear(), 0.0f, 100.0f);
+	}
+
+	@Test
+	public void logarithmicNeedleMapping() {
+		timeNeedleMapping("scale.logarithmic", GaugeScale.logarithmic(), 1.0f, 10000.0f);
+	}
+
+	@Test
+	public void squareRootNeedleMapping() {
+		timeNeedleMapping("scale.squareRoot", GaugeScale.squareRoot(), 0.0f, 100.0f);
+	}
+
+	@Test
+	public void piecewiseNeedleMapping() {
+		timeNeedleMapping("scale.piecewise",
+				GaugeScale.piecewise(new float[] { 10.0f, 50.0f, 100.0f }, new float[] { 0.25f, 0.5f, 0.75f }), 0.0f,
+				1000.0f);
+	}
+
+	@Test
+	public void scaleDivisions() {
+		sTimings.setCase("scale.logarithmic");
+		final GaugeScale scale = GaugeScale.logarithmic();
+		for (int sample = 0; sample < WARMUP_SAMPLES + SAMPLES; sample++) {
+			final long start = System.nanoTime();
+			// What a background rebuild asks from the scale
+			scale.prepare(1.0f, 10000.0f);
+			mSink += scale.getDivisionValues(10)[5];
+			if (sample >= WARMUP_SAMPLES) {
+				sTimings.add("divisions", System.nanoTime() - start);
+			}
+		}
+		assertWithinBudget();
+	}
+
+	@Test
+	public void backgroundPoolLookups() {
+		sTimings.setCase("pool");
+		final GaugeBackgroundPool pool = new GaugeBackgroundPool();
+		for (int i = 0; i < GaugeBackgroundPool.MAX_SIZE; i++) {
+			pool.put(100 * (i + 1), 100 * (i + 1), null);
+		}
+		for (int sample = 0; sample < WARMUP_SAMPLES + SAMPLES; sample++) {
+			final long start = System.nanoTime();
+			for (int i = 0; i < FRAMES; i++) {
+				pool.get(100 * (i % GaugeBackgroundPool.MAX_SIZE + 1), 100 * (i % GaugeBackgroundPool.MAX_SIZE + 1));
+			}
+			if (sample >= WARMUP_SAMPLES) {
+				sTimings.add("get", System.nanoTime() - start);
+			}
+		}
+		assertWithinBudget();
+	}
+
+	@Test
+	public void valueRecording() throws IOException {
+		sTimings.setCase("recorder");
+		final GaugeValueRecorder recorder = new GaugeValueRecorder(mFolder.newFile());
+		try {
+			for (int sample = 0; sample < WARMUP_SAMPLES + SAMPLES; sample++) {
+				final long start = System.nanoTime();
+				for (int i = 0; i < FRAMES; i++) {
+					recorder.record(i);
+				}
+				if (sample >= WARMUP_SAMPLES) {
+					sTimings.add("record", System.nanoTime() - start);
+				}
+			}
+		} finally {
+			recorder.close();
+		}
+		assertWithinBudget();
+	}
+
+	private void timeNeedleMapping(final String name, final GaugeScale scale, final float startValue,
+			final float endValue) {
+		sTimings.setCase(name);
+		scale.prepare(startValue, endValue);
+		for (int sample = 0; sample < WARMUP_SAMPLES + SAMPLES; sample++) {
+			final long start = System.nanoTime();
+			// A needle sweeping the whole scale, one value per frame
+			for (int i = 0; i < FRAMES; i++) {
+				mSink += scale.toFraction(startValue + (endValue - startValue) * i / FRAMES);
+			}
+			if (sample >= WARMUP_SAMPLES) {
+				sTimings.add("toFraction", System.nanoTime() - start);
+			}
+		}
+		assertWithinBudget();
+	}
+
+	private static void assertWithinBudget() {
+		final List<String> violations = sTimings.checkBudgets(sBudgets);
+		assertTrue(violations.toString(), violations.isEmpty());
+	}
+}
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Evelina Vrabie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.codeandmagic.android.gauge;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GaugeValueRecorderTest {
+
+	@Rule
+	public TemporaryFolder mFolder = new TemporaryFolder();
+
+	@Test
+	public void recordsAreReadBack() throws IOException {
+		final File file = mFolder.newFile();
+		// A small buffer, so the records go through several writes
+		final GaugeValueRecorder recorder = new GaugeValueRecorder(file, 3);
+		for (int i = 0; i < 10; i++) {
+			recorder.record(1000000L * i, i * 1.5f);
+		}
+		recorder.close();
+		assertNull(recorder.getError());
+
+		final GaugeValueRecording recording = new GaugeValueRecording(file);
+		assertEquals(10, recording.getCount());
+		for (int i = 0; i < 10; i++) {
+			assertEquals(1000000L * i, recording.getTimestamp(i));
+			assertEquals(i * 1.5f, recording.getValue(i), 0.0f);
+		}
+		assertEquals(9, recording.getDuration());
+	}
+
+	@Test
+	public void trailingPartialRecordIsIgnored() throws IOException {
+		final File file = mFolder.newFile();
+		final GaugeValueRecorder recorder = new GaugeValueRecorder(file);
+		recorder.record(0L, 1.0f);
+		recorder.record(5000000L, 2.0f);
+		recorder.close();
+
+		final FileOutputStream out = new FileOutputStream(file, true);
+		out.write(new byte[GaugeValueRecorder.RECORD_SIZE - 1]);
+		out.close();
+
+		final GaugeValueRecording recording = new GaugeValueRecording(file);
+		assertEquals(2, recording.getCount());
+		assertEquals(2.0f, recording.getValue(1), 0.0f);
+	}
+
+	@Test
+	public void existingRecordingIsNotAppendedTo() throws IOException {
+		final File file = mFolder.newFile();
+		final GaugeValueRecorder recorder = new GaugeValueRecorder(file);
+		recorder.record(0L, 1.0f);
+		recorder.close();
+		final long length = file.length();
+
+		try {
+			new GaugeValueRecorder(file);
+			fail("A second session must not be appended to the recording.");
+		} catch (final IOException e) {
+			// Expected
+		}
+		assertEquals(length, file.length());
+	}
+
+	@Test
+	public void emptyFileIsReused() throws IOException {
+		final File file = mFolder.newFile();
+		new GaugeValueRecorder(file).close();
+		assertEquals(0, new GaugeValueRecording(file).getCount());
+	}
+
+	@Test
+	public void recordingAfterCloseIsIgnored() throws IOException {
+		final File file = mFolder.newFile();
+		final GaugeValueRecorder recorder = new GaugeValueRecorder(file, 1);
+		recorder.record(0L, 1.0f);
+		recorder.close();
+		recorder.record(1L, 2.0f);
+		recorder.record(2L, 3.0f);
+		recorder.close();
+		assertEquals(1, new GaugeValueRecording(file).getCount());
+	}
+
+	@Test(expected = IOException.class)
+	public void invalidFileIsRejected() throws IOException {
+		final File file = mFolder.newFile();
+		final FileOutputStream out = new FileOutputStream(file);
+		out.write(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9 });
+		out.close();
+		new GaugeValueRecording(file);
+	}
+
+	@Test
+	public void flushWritesEverythingRecordedSoFar() throws IOException {
+		final File file = mFolder.newFile();
+		final GaugeValueRecorder recorder = new GaugeValueRecorder(file, 4);
+		for (int i = 0; i < 10; i++) {
+			recorder.record(i, i);
+		}
+		recorder.flush();
+		assertEquals(GaugeValueRecorder.HEADER_SIZE + 10 * GaugeValueRecorder.RECORD_SIZE, file.length());
+
+		recorder.record(10L, 10.0f);
+		recorder.close();
+		assertEquals(11, new GaugeValueRecording(file).getCount());
+	}
+
+	@Test
+	public void writeErrorIsReportedOnClose() throws IOException {
+		// Every write to /dev/full fails with "No space left on device"
+		final File full = new File("/dev/full");
+		assumeTrue(full.canWrite());
+
+		final GaugeValueRecorder recorder = new GaugeValueRecorder(full, 1);
+		for (int i = 0; i < 100; i++) {
+			recorder.record(i, i);
+		}
+		try {
+			recorder.close();
+			fail("The write error must be reported.");
+		} catch (final IOException e) {
+			assertNotNull(recorder.getError());
+		}
+		// Recording after the error is a no-op, not an exception
+		recorder.record(100L, 100.0f);
+	}
+}
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Evelina Vrabie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.codeandmagic.android.gauge;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.imageio.ImageIO;
+
+/**
+ * A reference rendering stored as PNG, compared with ARGB pixels as returned by {@code Bitmap.getPixels()}. Rendering
+ * changes that are only antialiasing or rounding noise stay within the channel tolerance; a few stray pixels are
+ * allowed too, so the same goldens work across renderer versions.
+ */
+class GoldenImage {
+
+	private final int mWidth;
+	private final int mHeight;
+	private final int[] mPixels;
+
+	GoldenImage(final int width, final int height, final int[] pixels) {
+		if (pixels.length != width * height) {
+			throw new IllegalArgumentException("Expected " + width * height + " pixels, got " + pixels.length);
+		}
+		mWidth = width;
+		mHeight = height;
+		mPixels = pixels;
+	}
+
+	static GoldenImage read(final InputStream in) throws IOException {
+		final BufferedImage image = ImageIO.read(in);
+		if (null == image) {
+			throw new IOException("Not an image");
+		}
+		final int width = image.getWidth();
+		final int height = image.getHeight();
+		return new GoldenImage(width, height, image.getRGB(0, 0, width, height, null, 0, width));
+	}
+
+	/**
+	 * Writes the pixels as the new golden, e.g. after an intended change of the rendering.
+	 */
+	void write(final File file) throws IOException {
+		final BufferedImage image = new BufferedImage(mWidth, mHeight, BufferedImage.TYPE_INT_ARGB);
+		image.setRGB(0, 0, mWidth, mHeight, mPixels, 0, mWidth);
+		if (!ImageIO.write(image, "png", file)) {
+			throw new IOException("No PNG writer");
+		}
+	}
+
+	int getWidth() {
+		return mWidth;
+	}
+
+	int getHeight() {
+		return mHeight;
+	}
+
+	/**
+	 * @return how many pixels have a channel that differs by more than the tolerance.
+	 */
+	int countDifferentPixels(final int[] pixels, final int channelTolerance) {
+		if (pixels.length != mPixels.length) {
+			throw new IllegalArgumentException("Expected " + mPixels.length + " pixels, got " + pixels.length);
+		}
+		int count = 0;
+		for (int i = 0; i < mPixels.length; i++) {
+			final int expected = mPixels[i];
+			final int actual = pixels[i];
+			for (int shift = 0; shift < 32; shift += 8) {
+				if (Math.abs(((expected >>> shift) & 0xff) - ((actual >>> shift) & 0xff)) > channelTolerance) {
+					count++;
+					break;
+				}
+			}
+		}
+		return count;
+	}
+
+	boolean matches(final int[] pixels, final int channelTolerance, final float maxDifferentFraction) {
+		return countDifferentPixels(pixels, channelTolerance) <= maxDifferentFraction * mPixels.length;
+	}
+}
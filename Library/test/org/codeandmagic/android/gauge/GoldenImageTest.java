@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Evelina Vrabie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.codeandmagic.android.gauge;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GoldenImageTest {
+
+	@Rule
+	public TemporaryFolder mFolder = new TemporaryFolder();
+
+	@Test
+	public void noiseWithinToleranceMatches() {
+		final GoldenImage golden = new GoldenImage(2, 2, new int[] { 0xff000000, 0xffffffff, 0x80102030, 0x00000000 });
+		final int[] rendered = { 0xff010101, 0xfffefefe, 0x80112031, 0x00000000 };
+		assertEquals(0, golden.countDifferentPixels(rendered, 1));
+		assertTrue(golden.matches(rendered, 1, 0.0f));
+	}
+
+	@Test
+	public void differencesAreCountedPerPixel() {
+		final GoldenImage golden = new GoldenImage(2, 2, new int[] { 0xff000000, 0xff000000, 0xff000000, 0xff000000 });
+		// Alpha, red and all channels off: three pixels, whatever the number of channels
+		final int[] rendered = { 0x80000000, 0xffff0000, 0x00ffffff, 0xff000000 };
+		assertEquals(3, golden.countDifferentPixels(rendered, 2));
+		assertTrue(golden.matches(rendered, 2, 0.75f));
+		assertFalse(golden.matches(rendered, 2, 0.5f));
+	}
+
+	@Test
+	public void pngRoundTripKeepsPixels() throws IOException {
+		final int[] pixels = { 0xff123456, 0x80ff0000, 0x00000000, 0xffffffff, 0x40404040, 0xff00ff00 };
+		final File file = mFolder.newFile("golden.png");
+		new GoldenImage(3, 2, pixels).write(file);
+
+		final InputStream in = new FileInputStream(file);
+		final GoldenImage golden;
+		try {
+			golden = GoldenImage.read(in);
+		} finally {
+			in.close();
+		}
+		assertEquals(3, golden.getWidth());
+		assertEquals(2, golden.getHeight());
+		assertEquals(0, golden.countDifferentPixels(pixels, 0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void sizeMismatchIsRejected() {
+		new GoldenImage(2, 2, new int[4]).countDifferentPixels(new int[3], 0);
+	}
+}